@@ -0,0 +1,202 @@
+package com.github.rainang.minesweeperlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Measures the open, chord, and flag actions on a fixed board.
+ <p>
+ The open benchmark opens the zero tile with the largest cascade on a board of the same size with the minimum amount
+ of mines, which is the worst case for a single action. The chord benchmark opens the largest cascade on the board,
+ flags the mines around the open number with the most closed safe neighbors, and chords that number. Both actions
+ change the board, so the game is prepared again before every invocation, outside of the measurement. The flag
+ benchmark toggles a flag on the same closed tile on every invocation.
+ </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ActionBenchmark
+{
+	private static final long SEED = 1L;
+	
+	@Benchmark
+	public int open(Cascade state)
+	{
+		return state.ms.open(state.x, state.y);
+	}
+	
+	@Benchmark
+	public int chord(Chord state)
+	{
+		return state.ms.chord(state.x, state.y);
+	}
+	
+	@Benchmark
+	public boolean flag(Flag state)
+	{
+		return state.ms.flag(state.x, state.y);
+	}
+	
+	private static Minesweeper newGame(Difficulty difficulty)
+	{
+		Minesweeper ms = new Minesweeper();
+		ms.setDifficulty(difficulty);
+		ms.newGame(SEED);
+		return ms;
+	}
+	
+	/**
+	 Returns the zero tile with the largest cascade on the board of the specified game.
+	 */
+	private static int largestCascade(Minesweeper ms)
+	{
+		Board board = ms.getBoard();
+		int cascade = 0;
+		int most = 0;
+		for (int i = 0; i < board.getSize(); i++)
+		{
+			if (board.isMine(i) || board.getMineCount(i) != 0)
+				continue;
+			ms.restartGame();
+			int opened = ms.open(board.getX(i), board.getY(i));
+			if (opened > most)
+			{
+				most = opened;
+				cascade = i;
+			}
+		}
+		return cascade;
+	}
+	
+	@State(Scope.Thread)
+	public static class Cascade
+	{
+		@Param({"BEGINNER", "INTERMEDIATE", "EXPERT"})
+		public Difficulty difficulty;
+		
+		private Minesweeper ms;
+		
+		private int x;
+		
+		private int y;
+		
+		@Setup(Level.Trial)
+		public void setDifficulty()
+		{
+			ms = newGame(difficulty);
+			ms.setDifficulty(ms.getWidth(), ms.getHeight(), 0);
+			ms.newGame(SEED);
+			int cascade = largestCascade(ms);
+			x = ms.getBoard()
+				  .getX(cascade);
+			y = ms.getBoard()
+				  .getY(cascade);
+		}
+		
+		@Setup(Level.Invocation)
+		public void restartGame()
+		{
+			ms.restartGame();
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Chord
+	{
+		@Param({"BEGINNER", "INTERMEDIATE", "EXPERT"})
+		public Difficulty difficulty;
+		
+		private Minesweeper ms;
+		
+		private Board board;
+		
+		private int cascade;
+		
+		private int x;
+		
+		private int y;
+		
+		@Setup(Level.Trial)
+		public void setDifficulty()
+		{
+			ms = newGame(difficulty);
+			board = ms.getBoard();
+			cascade = largestCascade(ms);
+			
+			ms.restartGame();
+			ms.open(board.getX(cascade), board.getY(cascade));
+			int chord = 0;
+			int most = 0;
+			for (int i = 0; i < board.getSize(); i++)
+			{
+				if (!board.isOpen(i) || board.getMineCount(i) == 0)
+					continue;
+				int safe = 0;
+				for (int n : board.getNeighbors(i))
+					if (!board.isOpen(n) && !board.isMine(n))
+						safe++;
+				if (safe > most)
+				{
+					most = safe;
+					chord = i;
+				}
+			}
+			x = board.getX(chord);
+			y = board.getY(chord);
+		}
+		
+		@Setup(Level.Invocation)
+		public void restartGame()
+		{
+			ms.restartGame();
+			ms.open(board.getX(cascade), board.getY(cascade));
+			for (int n : board.getNeighbors(board.index(x, y)))
+				if (board.isMine(n))
+					ms.flag(board.getX(n), board.getY(n));
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class Flag
+	{
+		@Param({"BEGINNER", "INTERMEDIATE", "EXPERT"})
+		public Difficulty difficulty;
+		
+		private Minesweeper ms;
+		
+		private int x;
+		
+		private int y;
+		
+		@Setup(Level.Trial)
+		public void setDifficulty()
+		{
+			ms = newGame(difficulty);
+			Board board = ms.getBoard();
+			int cascade = largestCascade(ms);
+			ms.restartGame();
+			ms.open(board.getX(cascade), board.getY(cascade));
+			for (int i = 0; i < board.getSize(); i++)
+				if (!board.isOpen(i))
+				{
+					x = board.getX(i);
+					y = board.getY(i);
+				}
+		}
+	}
+}
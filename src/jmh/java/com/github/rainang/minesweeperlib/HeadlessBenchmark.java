@@ -0,0 +1,96 @@
+package com.github.rainang.minesweeperlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Measures the time per action of a game played with and without headless mode.
+ <p>
+ The open benchmark opens every safe tile of a fixed board in row-major order, one tile per invocation, and restarts
+ the game once all of them are open, so it measures the mix of single tiles, cascades, and tiles already open that a
+ bot clicking through a board produces. The flag benchmark toggles a flag on a mine of a game in progress on every
+ invocation.
+ </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HeadlessBenchmark
+{
+	private static final long SEED = 1L;
+	
+	@Param({"BEGINNER", "INTERMEDIATE", "EXPERT"})
+	public Difficulty difficulty;
+	
+	@Param({"false", "true"})
+	public boolean headless;
+	
+	private Minesweeper ms;
+	
+	private int[] safe;
+	
+	private int next;
+	
+	private int flagX;
+	
+	private int flagY;
+	
+	@Setup
+	public void setDifficulty()
+	{
+		ms = new Minesweeper();
+		ms.setHeadless(headless);
+		ms.setDifficulty(difficulty);
+		ms.newGame(SEED);
+		// mines are placed on the first click, and kept by restarts
+		ms.open(0, 0);
+		
+		Board board = ms.getBoard();
+		safe = new int[board.getSize() - board.countMines()];
+		int n = 0;
+		for (int i = 0; i < board.getSize(); i++)
+			if (!board.isMine(i))
+				safe[n++] = i;
+		int mine = 0;
+		while (!board.isMine(mine))
+			mine++;
+		flagX = board.getX(mine);
+		flagY = board.getY(mine);
+		ms.restartGame();
+		ms.open(board.getX(safe[0]), board.getY(safe[0]));
+		next = 1;
+	}
+	
+	@Benchmark
+	public int open()
+	{
+		if (next == safe.length)
+		{
+			ms.restartGame();
+			next = 0;
+		}
+		Board board = ms.getBoard();
+		int i = safe[next++];
+		return ms.open(board.getX(i), board.getY(i));
+	}
+	
+	@Benchmark
+	public boolean flag()
+	{
+		return ms.flag(flagX, flagY);
+	}
+}
@@ -0,0 +1,68 @@
+package com.github.rainang.minesweeperlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Measures large board mode. Every invocation opens the center tile of a freshly generated board with a mine density of
+ one percent, which opens almost the entire board in a single cascade. The retained memory per cell is printed once
+ per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LargeBoardBenchmark
+{
+	private static final long SEED = 1L;
+	
+	@Param({"1000", "4000", "10000"})
+	public int size;
+	
+	private Minesweeper ms;
+	
+	@Setup(Level.Trial)
+	public void setDifficulty()
+	{
+		long before = usedMemory();
+		ms = new Minesweeper();
+		ms.setLargeBoardMode(true);
+		ms.setDifficulty(size, size, size * size / 100);
+		long after = usedMemory();
+		System.out.printf("%n%dx%d: %.3f bytes per cell%n", size, size, (after - before) / ((double) size * size));
+	}
+	
+	@Setup(Level.Invocation)
+	public void newGame()
+	{
+		ms.newGame(SEED);
+	}
+	
+	@Benchmark
+	public int open()
+	{
+		return ms.open(size / 2, size / 2);
+	}
+	
+	private static long usedMemory()
+	{
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
@@ -0,0 +1,62 @@
+package com.github.rainang.minesweeperlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Measures the computation of openings and 3BV. The counts are cached per board, so every invocation first toggles a
+ mine twice, which leaves the mines as they are but discards the cached counts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark
+{
+	private static final long SEED = 1L;
+	
+	@Param({"BEGINNER", "INTERMEDIATE", "EXPERT"})
+	public Difficulty difficulty;
+	
+	private Minesweeper ms;
+	
+	private Board board;
+	
+	@Setup
+	public void setDifficulty()
+	{
+		ms = new Minesweeper();
+		ms.setDifficulty(difficulty);
+		ms.newGame(SEED);
+		board = ms.getBoard();
+	}
+	
+	@Benchmark
+	public int countOpenings()
+	{
+		board.toggleMine(0);
+		board.toggleMine(0);
+		return ms.countOpenings();
+	}
+	
+	@Benchmark
+	public int count3BV()
+	{
+		board.toggleMine(0);
+		board.toggleMine(0);
+		return ms.count3BV();
+	}
+}
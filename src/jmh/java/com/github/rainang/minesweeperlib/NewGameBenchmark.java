@@ -0,0 +1,118 @@
+package com.github.rainang.minesweeperlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Measures board generation. The board parameter is either a difficulty, or a custom board given as
+ <code>WIDTHxHEIGHTxMINES</code>, used for high mine densities. The random parameter selects the random number
+ generator, since reseeding it is part of every new game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NewGameBenchmark
+{
+	@Param({"BEGINNER", "INTERMEDIATE", "EXPERT", "30x16x240", "30x16x470"})
+	public String board;
+	
+	@Param({"legacy", "splittable", "xoroshiro"})
+	public String random;
+	
+	private Minesweeper ms;
+	
+	private int width;
+	
+	private int height;
+	
+	private int mines;
+	
+	private long seed;
+	
+	private MinesweeperPool pool;
+	
+	@Setup
+	public void createGame()
+	{
+		ms = new Minesweeper();
+		ms.setMineRandom(createRandom());
+		if (board.indexOf('x') < 0)
+			ms.setDifficulty(Difficulty.valueOf(board));
+		else
+		{
+			String[] s = board.split("x");
+			ms.setDifficulty(Integer.parseInt(s[0]), Integer.parseInt(s[1]), Integer.parseInt(s[2]));
+		}
+		width = ms.getWidth();
+		height = ms.getHeight();
+		mines = ms.getMines();
+		pool = new MinesweeperPool(game -> game.setMineRandom(createRandom()), 64);
+		pool.release(pool.acquire(width, height, mines, 0));
+	}
+	
+	private MineRandom createRandom()
+	{
+		switch (random)
+		{
+		case "splittable":
+			return MineRandom.splittable();
+		case "xoroshiro":
+			return MineRandom.xoroshiro();
+		default:
+			return MineRandom.legacy();
+		}
+	}
+	
+	@Benchmark
+	public Minesweeper newGame()
+	{
+		ms.newGame(seed++);
+		return ms;
+	}
+	
+	/**
+	 Sets the difficulty and generates a game, as selecting the current difficulty again does. The size of the board
+	 does not change, so the board is kept.
+	 */
+	@Benchmark
+	public Minesweeper setDifficulty()
+	{
+		ms.setDifficulty(width, height, mines);
+		return ms;
+	}
+	
+	/**
+	 Sets the difficulty and generates a game from a seed in one step, which should not allocate.
+	 */
+	@Benchmark
+	public Minesweeper reset()
+	{
+		ms.reset(width, height, mines, seed++);
+		return ms;
+	}
+	
+	/**
+	 Acquires a game from a pool holding a game of the same size, and releases it again.
+	 */
+	@Benchmark
+	public Minesweeper pool()
+	{
+		Minesweeper game = pool.acquire(width, height, mines, seed++);
+		pool.release(game);
+		return game;
+	}
+}
@@ -0,0 +1,60 @@
+package com.github.rainang.minesweeperlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Measures the generation of boards that can be cleared without guessing, from a first click in the center. The
+ throughput mode reports boards per second on a single thread, and the sample mode reports the latency distribution,
+ including its 99th percentile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NoGuessBenchmark
+{
+	@Param({"BEGINNER", "INTERMEDIATE", "EXPERT"})
+	public Difficulty difficulty;
+	
+	private final MineRandom rng = MineRandom.xoroshiro();
+	
+	private int width;
+	
+	private int height;
+	
+	private int mines;
+	
+	private long seed;
+	
+	@Setup
+	public void setDifficulty()
+	{
+		Minesweeper ms = new Minesweeper();
+		ms.setDifficulty(difficulty);
+		width = ms.getWidth();
+		height = ms.getHeight();
+		mines = ms.getMines();
+	}
+	
+	@Benchmark
+	public BoardSnapshot generateNoGuess()
+	{
+		return BoardGenerator.generateNoGuess(width, height, mines, seed++, width / 2, height / 2, rng);
+	}
+}
@@ -0,0 +1,363 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ A game event listener that hands events over to a dedicated consumer thread, so the cost of slow listeners does not
+ add to the latency of game actions.
+ <p>
+ The dispatcher is registered to one or more <code>Minesweeper</code> objects with their
+ <code>addGameEventDataListener</code> method, and the slow listeners are registered to the dispatcher instead. On the
+ game thread, each event is only written to a bounded, lock-free ring buffer. The consumer thread drains the buffer in
+ batches, and invokes the listeners registered to the dispatcher. Listeners registered directly to a game are still
+ invoked synchronously, so synchronous dispatch remains the default. When the buffer is full, the game thread follows
+ the dispatcher's <code>OverflowPolicy</code>.
+ </p>
+ <p>
+ Events must be published from one thread at a time, so a dispatcher may only be shared by games that are played on
+ the same thread. Listeners are invoked on the consumer thread, and must not modify the games they observe.
+ </p>
+ */
+public final class AsyncEventDispatcher implements GameEvent.DataListener, AutoCloseable
+{
+	/**
+	 The default maximum amount of events delivered in one batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 64;
+	
+	private final AtomicReferenceArray<GameEventData> buffer;
+	
+	private final int mask;
+	
+	private final OverflowPolicy policy;
+	
+	private final int batchSize;
+	
+	private final AtomicLong head = new AtomicLong();
+	
+	private final AtomicLong tail = new AtomicLong();
+	
+	private final AtomicReference<GameEventData[]> overflow = new AtomicReference<>();
+	
+	private final AtomicLong dropped = new AtomicLong();
+	
+	private final List<GameEvent.Listener> listeners = new CopyOnWriteArrayList<>();
+	
+	private final List<GameEvent.BatchListener> batchListeners = new CopyOnWriteArrayList<>();
+	
+	private final Thread consumer;
+	
+	private volatile boolean waiting;
+	
+	private volatile boolean running = true;
+	
+	/**
+	 Constructs a dispatcher with a daemon consumer thread and the default batch size.
+	 
+	 @param capacity the capacity of the buffer, rounded up to a power of two
+	 @param policy   the policy to follow when the buffer is full
+	 */
+	public AsyncEventDispatcher(int capacity, OverflowPolicy policy)
+	{
+		this(capacity, policy, DEFAULT_BATCH_SIZE, r ->
+		{
+			Thread t = new Thread(r, "minesweeper-events");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+	
+	/**
+	 Constructs a dispatcher with a consumer thread created by the specified factory. On a platform with virtual
+	 threads, a virtual thread factory may be used.
+	 
+	 @param capacity      the capacity of the buffer, rounded up to a power of two
+	 @param policy        the policy to follow when the buffer is full
+	 @param batchSize     the maximum amount of events delivered in one batch
+	 @param threadFactory the factory creating the consumer thread
+	 */
+	public AsyncEventDispatcher(int capacity, OverflowPolicy policy, int batchSize, ThreadFactory threadFactory)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+		this.policy = policy;
+		this.batchSize = Math.max(1, batchSize);
+		this.consumer = threadFactory.newThread(this::consume);
+		consumer.start();
+	}
+	
+	/**
+	 Registers a listener to be invoked on the consumer thread for every event.
+	 
+	 @param listener the <code>GameEvent.Listener</code> object to register
+	 
+	 @return <code>true</code> if the listener was successfully added
+	 */
+	public boolean addGameEventListener(GameEvent.Listener listener)
+	{
+		return listeners.add(listener);
+	}
+	
+	/**
+	 Removes a listener.
+	 
+	 @param listener the <code>GameEvent.Listener</code> object to remove
+	 
+	 @return <code>true</code> if the listener was successfully removed
+	 */
+	public boolean removeGameEventListener(GameEvent.Listener listener)
+	{
+		return listeners.remove(listener);
+	}
+	
+	/**
+	 Registers a listener to be invoked on the consumer thread for every batch of events.
+	 
+	 @param listener the <code>GameEvent.BatchListener</code> object to register
+	 
+	 @return <code>true</code> if the listener was successfully added
+	 */
+	public boolean addBatchListener(GameEvent.BatchListener listener)
+	{
+		return batchListeners.add(listener);
+	}
+	
+	/**
+	 Removes a batch listener.
+	 
+	 @param listener the <code>GameEvent.BatchListener</code> object to remove
+	 
+	 @return <code>true</code> if the listener was successfully removed
+	 */
+	public boolean removeBatchListener(GameEvent.BatchListener listener)
+	{
+		return batchListeners.remove(listener);
+	}
+	
+	/**
+	 Publishes the event to the consumer thread. An event published after the dispatcher is closed is discarded and
+	 counted by <code>getDroppedCount</code>, so a game still registered to a closed dispatcher is unaffected.
+	 */
+	@Override
+	public void onGameEvent(GameEventData data)
+	{
+		if (!running)
+		{
+			dropped.incrementAndGet();
+			return;
+		}
+		if (policy == OverflowPolicy.COALESCE && overflow.get() != null && coalesce(data))
+		{
+			signal();
+			return;
+		}
+		int spins = 0;
+		while (true)
+		{
+			long t = tail.get();
+			long h = head.get();
+			if (t - h <= mask)
+			{
+				buffer.set((int) t & mask, data);
+				tail.set(t + 1);
+				signal();
+				return;
+			}
+			switch (policy)
+			{
+			case BLOCK:
+				signal();
+				if (++spins < 100)
+					Thread.yield();
+				else
+					LockSupport.parkNanos(10_000);
+				break;
+			case DROP_OLDEST:
+				if (head.compareAndSet(h, h + 1))
+					dropped.incrementAndGet();
+				break;
+			case COALESCE:
+				if (coalesce(data))
+				{
+					signal();
+					return;
+				}
+				break;
+			}
+		}
+	}
+	
+	/**
+	 Merges the event into the pending overflow, which holds the latest event of each type and game in the order they
+	 occurred. A new game, restart, or difficulty change starts a new segment of the overflow for its game, and events
+	 are never merged across it, so the cells changed on one board are never reported for the next.
+	 
+	 @return <code>false</code> if the consumer took the overflow, and the event should be written to the buffer
+	 */
+	private boolean coalesce(GameEventData data)
+	{
+		while (true)
+		{
+			GameEventData[] current = overflow.get();
+			GameEventData[] next;
+			if (current == null)
+			{
+				// the buffer was full when this was called, but the consumer may have drained it since
+				if (tail.get() - head.get() <= mask)
+					return false;
+				next = new GameEventData[] {data};
+			} else
+			{
+				int start = current.length;
+				if (!isReset(data.getEvent()))
+					while (start > 0 && !(current[start - 1].getMinesweeper() == data.getMinesweeper() &&
+										  isReset(current[start - 1].getEvent())))
+						start--;
+				next = Arrays.copyOf(current, current.length + 1);
+				int n = start;
+				GameEventData merged = data;
+				for (int i = start; i < current.length; i++)
+				{
+					GameEventData e = current[i];
+					if (data.canCoalesce(e))
+						merged = data.coalesce(e);
+					else
+						next[n++] = e;
+				}
+				next[n++] = merged;
+				next = Arrays.copyOf(next, n);
+			}
+			if (overflow.compareAndSet(current, next))
+				return true;
+		}
+	}
+	
+	private static boolean isReset(GameEvent event)
+	{
+		return event == GameEvent.NEW_GAME_EVENT || event == GameEvent.RESTART_GAME_EVENT ||
+			   event == GameEvent.DIFFICULTY_CHANGE_EVENT;
+	}
+	
+	private void signal()
+	{
+		if (waiting)
+			LockSupport.unpark(consumer);
+	}
+	
+	private void consume()
+	{
+		GameEventData[] batch = new GameEventData[batchSize];
+		List<GameEventData> view = Collections.unmodifiableList(Arrays.asList(batch));
+		while (true)
+		{
+			long h = head.get();
+			long t = tail.get();
+			if (h == t)
+			{
+				GameEventData[] pending = overflow.getAndSet(null);
+				if (pending != null)
+				{
+					deliver(Collections.unmodifiableList(Arrays.asList(pending)));
+					continue;
+				}
+				if (!running)
+					return;
+				waiting = true;
+				if (tail.get() == h && overflow.get() == null && running)
+					LockSupport.park(this);
+				waiting = false;
+				continue;
+			}
+			int n = (int) Math.min(t - h, batchSize);
+			for (int k = 0; k < n; k++)
+				batch[k] = buffer.get((int) (h + k) & mask);
+			// the producer may have dropped some of these events in the meantime
+			if (!head.compareAndSet(h, h + n))
+				continue;
+			deliver(n == batchSize ? view : view.subList(0, n));
+			Arrays.fill(batch, 0, n, null);
+		}
+	}
+	
+	/**
+	 Delivers the events to every listener. An exception thrown by a listener is passed to the uncaught exception
+	 handler of the consumer thread, and does not stop the delivery to other listeners.
+	 */
+	private void deliver(List<GameEventData> events)
+	{
+		for (GameEvent.BatchListener l : batchListeners)
+			try
+			{
+				l.onGameEvents(events);
+			} catch (RuntimeException e)
+			{
+				handle(e);
+			}
+		for (GameEventData e : events)
+			for (GameEvent.Listener l : listeners)
+				try
+				{
+					l.onGameEvent(e.getEvent(), e.getMinesweeper(), e.getTile());
+				} catch (RuntimeException ex)
+				{
+					handle(ex);
+				}
+	}
+	
+	private static void handle(RuntimeException e)
+	{
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler()
+			  .uncaughtException(thread, e);
+	}
+	
+	/**
+	 Returns the amount of events discarded under the <code>DROP_OLDEST</code> policy, or because they were published
+	 after the dispatcher was closed.
+	 
+	 @return the amount of events discarded
+	 */
+	public long getDroppedCount()
+	{
+		return dropped.get();
+	}
+	
+	/**
+	 Returns the policy followed when the buffer is full.
+	 
+	 @return the policy followed when the buffer is full
+	 */
+	public OverflowPolicy getOverflowPolicy()
+	{
+		return policy;
+	}
+	
+	/**
+	 Stops accepting events, waits for the consumer thread to deliver the events already published, and stops it.
+	 Events published afterwards are discarded. If the calling thread is interrupted while waiting, this returns early
+	 with the interrupt status set.
+	 */
+	@Override
+	public void close()
+	{
+		running = false;
+		LockSupport.unpark(consumer);
+		try
+		{
+			consumer.join();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread()
+				  .interrupt();
+		}
+	}
+}
@@ -0,0 +1,991 @@
+package com.github.rainang.minesweeperlib;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ The packed cell storage of a <code>Minesweeper</code> board.
+ <p>
+ Cells are addressed by index, <code>y * width + x</code>. The mine, open, and flag attributes of every cell are stored
+ in three bit planes of <code>long</code> words, one bit per cell. Neighbor mine and flag counts are not stored, they
+ are derived from the planes, and neighbors are found by index arithmetic rather than by object references.
+ </p>
+ */
+final class Board
+{
+	private static final int[] NO_CELLS = new int[0];
+	
+	private final int width;
+	
+	private final int height;
+	
+	private final int size;
+	
+	private final int words;
+	
+	private final long[] mines;
+	
+	private final long[] open;
+	
+	private final long[] flags;
+	
+	private final IntQueue queue;
+	
+	private final int[] area = new int[9];
+	
+	private IntList changes;
+	
+	private int openings = -1;
+	
+	private int bbbv;
+	
+	private long[] bordered;
+	
+	private long[] solved;
+	
+	private IntQueue marks;
+	
+	private int remaining = -1;
+	
+	private long[] frontier;
+	
+	private int frontierSize = -1;
+	
+	/**
+	 Constructs an empty board with the specified dimensions.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 */
+	Board(int width, int height)
+	{
+		this(width, height, null);
+	}
+	
+	/**
+	 Constructs an empty board with the specified dimensions, taking over the storage of a board that is no longer used
+	 if it fits. The planes of the old board are reused if they hold enough cells, and not more than twice as many
+	 words as needed, or 64 words, so a large board is not kept alive by a small one. The old board must not be used
+	 afterwards, as it shares its storage with this one.
+	 
+	 @param width    the width of the board
+	 @param height   the height of the board
+	 @param recycled the board to take the storage of, or <code>null</code>
+	 */
+	Board(int width, int height, Board recycled)
+	{
+		this.width = width;
+		this.height = height;
+		this.size = width * height;
+		this.words = (size + 63) >>> 6;
+		if (recycled != null && recycled.mines.length >= words && recycled.mines.length <= Math.max(64, words * 2))
+		{
+			this.mines = recycled.mines;
+			this.open = recycled.open;
+			this.flags = recycled.flags;
+			this.queue = recycled.queue;
+			this.changes = recycled.changes;
+			this.bordered = recycled.bordered;
+			this.solved = recycled.solved;
+			this.marks = recycled.marks;
+			this.frontier = recycled.frontier;
+			reset();
+			clearChanges();
+		} else
+		{
+			this.mines = new long[words];
+			this.open = new long[words];
+			this.flags = new long[words];
+			this.queue = new IntQueue(64);
+		}
+	}
+	
+	/**
+	 Clears all cell attributes, including mines. This invalidates the cached openings and 3BV value.
+	 */
+	void reset()
+	{
+		Arrays.fill(mines, 0);
+		openings = -1;
+		restart();
+	}
+	
+	/**
+	 Clears the open and flag attributes of all cells but leaves mines as is. This stops tracking the remaining 3BV,
+	 and empties the frontier.
+	 */
+	void restart()
+	{
+		Arrays.fill(open, 0);
+		Arrays.fill(flags, 0);
+		remaining = -1;
+		if (frontierSize >= 0)
+		{
+			Arrays.fill(frontier, 0, words, 0);
+			frontierSize = 0;
+		}
+	}
+	
+	/**
+	 Toggles the mine attribute of the specified cell. This invalidates the cached openings and 3BV value.
+	 
+	 @param i the index of the cell
+	 */
+	void toggleMine(int i)
+	{
+		mines[i >>> 6] ^= 1L << i;
+		openings = -1;
+		remaining = -1;
+	}
+	
+	/**
+	 Removes all mines but leaves the open and flag attributes of all cells as is. This invalidates the cached openings
+	 and 3BV value.
+	 */
+	void clearMines()
+	{
+		Arrays.fill(mines, 0);
+		openings = -1;
+		remaining = -1;
+	}
+	
+	/**
+	 Places the specified amount of mines on an empty board using Floyd's sampling algorithm, with exactly one draw
+	 from <code>rng</code> per mine. If <code>safe</code> is a valid index, no mines are placed within the
+	 <code>3x3</code> area around that cell.
+	 
+	 @param count the amount of mines to place
+	 @param rng   the random number generator to draw cells from
+	 @param safe  the index of the cell to keep clear, or -1 to sample over all cells
+	 
+	 @see MineLayout#SAMPLED
+	 */
+	void sampleMines(int count, MineRandom rng, int safe)
+	{
+		int excluded = safe < 0 ? 0 : getArea(safe, area);
+		int n = size - excluded;
+		for (int j = n - count; j < n; j++)
+		{
+			int t = skip(rng.nextInt(j + 1), area, excluded);
+			if (isMine(t))
+				t = skip(j, area, excluded);
+			toggleMine(t);
+		}
+	}
+	
+	private static int skip(int i, int[] excluded, int count)
+	{
+		for (int k = 0; k < count; k++)
+			if (i >= excluded[k])
+				i++;
+		return i;
+	}
+	
+	/**
+	 Places the specified amount of mines at random on cells that do not contain a mine, drawing coordinates until an
+	 empty cell is found.
+	 
+	 @param count the amount of mines to place
+	 @param rng   the random number generator to draw cells from
+	 
+	 @see MineLayout#LEGACY
+	 */
+	void placeMinesLegacy(int count, MineRandom rng)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			int x = rng.nextInt(width);
+			int y = rng.nextInt(height);
+			int t = y * width + x;
+			if (isMine(t))
+				i--;
+			else
+				toggleMine(t);
+		}
+	}
+	
+	/**
+	 Attempts to perform a flag action. A flag action cannot occur if the cell is open.
+	 
+	 @param i the index of the cell
+	 
+	 @return <code>true</code> if toggling occurred
+	 */
+	boolean toggleFlag(int i)
+	{
+		if (isOpen(i))
+			return false;
+		flags[i >>> 6] ^= 1L << i;
+		return true;
+	}
+	
+	/**
+	 Closes an open cell, undoing an open action that could not take effect.
+	 
+	 @param i the index of the cell
+	 */
+	void close(int i)
+	{
+		open[i >>> 6] &= ~(1L << i);
+	}
+	
+	/**
+	 Attempts to perform an open action. An open action cannot occur if the cell is open or contains a flag. If the
+	 action is successful, no mine is revealed, and no mines are nearby, all neighboring cells are opened as well. This
+	 may start a chain of open actions until no more cells may be opened.
+	 <p>
+	 The chain is flood filled breadth-first over a reusable queue rather than by recursion, so the call depth is
+	 constant and the queue only holds the edge of the region being opened.
+	 </p>
+	 
+	 @param i the index of the cell
+	 
+	 @return the amount of cells opened. This will be negated if a mine is revealed.
+	 */
+	int open(int i)
+	{
+		return open(i, queue, changes);
+	}
+	
+	/**
+	 Attempts to perform an open action with the specified queue and change list, so that actions on disjoint parts of
+	 the board may run on different threads.
+	 
+	 @param i       the index of the cell
+	 @param queue   the queue to flood fill with
+	 @param changes the list to append every opened cell to, or <code>null</code>
+	 
+	 @return the amount of cells opened. This will be negated if a mine is revealed.
+	 
+	 @see #open(int)
+	 */
+	int open(int i, IntQueue queue, IntList changes)
+	{
+		if (isOpen(i) || hasFlag(i))
+			return 0;
+		
+		open[i >>> 6] |= 1L << i;
+		if (changes != null)
+			changes.add(i);
+		
+		if (isMine(i))
+			return -1;
+		
+		boolean zero = getMineCount(i) == 0;
+		if (remaining >= 0)
+			solve(i, zero);
+		if (frontierSize >= 0)
+			expandFrontier(i);
+		if (!zero)
+			return 1;
+		
+		int n = 1;
+		queue.clear();
+		queue.offer(i);
+		while (!queue.isEmpty())
+		{
+			int c = queue.poll();
+			int x = getX(c);
+			int y = getY(c);
+			for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+				for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+				{
+					int j = ny * width + nx;
+					if (isOpen(j) || hasFlag(j))
+						continue;
+					open[j >>> 6] |= 1L << j;
+					if (changes != null)
+						changes.add(j);
+					n++;
+					zero = countNeighbors(mines, nx, ny) == 0;
+					if (remaining >= 0)
+						solve(j, zero);
+					if (frontierSize >= 0)
+						expandFrontier(j);
+					if (zero)
+						queue.offer(j);
+				}
+		}
+		return n;
+	}
+	
+	/**
+	 Attempts to perform a chord action. A chord action cannot occur if the cell is <i>not</i> open, no mines are
+	 nearby, or the nearby mine and flag counts are not equal. Otherwise, this opens all neighboring cells.
+	 
+	 @param i the index of the cell
+	 
+	 @return the amount of cells opened. This will be negated if a mine is revealed.
+	 
+	 @see #open(int)
+	 */
+	int chord(int i)
+	{
+		return chord(i, queue, changes);
+	}
+	
+	/**
+	 Attempts to perform a chord action with the specified queue and change list.
+	 
+	 @param i       the index of the cell
+	 @param queue   the queue to flood fill with
+	 @param changes the list to append every opened cell to, or <code>null</code>
+	 
+	 @return the amount of cells opened. This will be negated if a mine is revealed.
+	 
+	 @see #chord(int)
+	 @see #open(int, IntQueue, IntList)
+	 */
+	int chord(int i, IntQueue queue, IntList changes)
+	{
+		int count = getMineCount(i);
+		if (!isOpen(i) || count == 0 || count != getFlagCount(i))
+			return 0;
+		int x = getX(i);
+		int y = getY(i);
+		int n = 0;
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+			{
+				if (nx == x && ny == y)
+					continue;
+				int j = open(ny * width + nx, queue, changes);
+				if (j == -1)
+					return -(n + 1);
+				n += j;
+			}
+		return n;
+	}
+	
+	/**
+	 Enables or disables the recording of opened cells. While enabled, every cell opened by the <code>open</code> and
+	 <code>chord</code> methods is appended to a reusable change list until it is cleared.
+	 
+	 @param recording <code>true</code> to record opened cells
+	 */
+	void setRecording(boolean recording)
+	{
+		if (!recording)
+			changes = null;
+		else if (changes == null)
+			changes = new IntList(64);
+	}
+	
+	/**
+	 Clears the list of recorded cells. This is invoked before every action.
+	 */
+	void clearChanges()
+	{
+		if (changes != null)
+			changes.clear();
+	}
+	
+	/**
+	 Returns the number of cells opened since the list of recorded cells was last cleared.
+	 
+	 @return the number of recorded cells, 0 if recording is disabled
+	 */
+	int getChangeCount()
+	{
+		return changes == null ? 0 : changes.size();
+	}
+	
+	/**
+	 Returns the index of a recorded cell, in the order the cells were opened.
+	 
+	 @param k the position of the cell in the list of recorded cells
+	 
+	 @return the index of the recorded cell
+	 */
+	int getChange(int k)
+	{
+		return changes.get(k);
+	}
+	
+	/**
+	 Returns the amount of bytes written by the <code>write</code> method for a board with the specified amount of
+	 cells.
+	 
+	 @param size the amount of cells
+	 
+	 @return the amount of bytes written
+	 */
+	static int getEncodedSize(int size)
+	{
+		return ((size + 7) >>> 3) + (size + 4) / 5;
+	}
+	
+	/**
+	 Counts the cells of a board encoded at the position of the buffer, in the format of the <code>write</code>
+	 method, without reading them into a board or moving the position, so the record can be checked before a board is
+	 changed. The buffer must hold the whole encoding.
+	 
+	 @param buffer the buffer holding the encoded board
+	 @param size   the amount of cells
+	 
+	 @return the amount of mines, open cells, and open cells with a mine, in that order
+	 */
+	static int[] countEncoded(ByteBuffer buffer, int size)
+	{
+		int position = buffer.position();
+		int mineBytes = (size + 7) >>> 3;
+		int mines = 0;
+		for (int b = 0; b < mineBytes; b++)
+		{
+			int v = buffer.get(position + b) & 0xFF;
+			if (b == mineBytes - 1 && (size & 7) != 0)
+				v &= (1 << (size & 7)) - 1;
+			mines += Integer.bitCount(v);
+		}
+		int open = 0;
+		int openMines = 0;
+		for (int i = 0; i < size; i += 5)
+		{
+			int v = buffer.get(position + mineBytes + i / 5) & 0xFF;
+			for (int k = i; k < Math.min(size, i + 5); k++, v /= 3)
+				if (v % 3 == 1)
+				{
+					open++;
+					if ((buffer.get(position + (k >>> 3)) >>> (k & 7) & 1) != 0)
+						openMines++;
+				}
+		}
+		return new int[] {mines, open, openMines};
+	}
+	
+	/**
+	 Returns <code>true</code> if a cell of a board encoded at the position of the buffer, in the format of the
+	 <code>write</code> method, is open and has a mine. The position is not moved.
+	 
+	 @param buffer the buffer holding the encoded board
+	 @param size   the amount of cells
+	 @param i      the index of the cell
+	 
+	 @return <code>true</code> if the cell is open and has a mine
+	 */
+	static boolean isEncodedOpenMine(ByteBuffer buffer, int size, int i)
+	{
+		int position = buffer.position();
+		int v = buffer.get(position + ((size + 7) >>> 3) + i / 5) & 0xFF;
+		for (int k = i % 5; k > 0; k--)
+			v /= 3;
+		return v % 3 == 1 && (buffer.get(position + (i >>> 3)) >>> (i & 7) & 1) != 0;
+	}
+	
+	/**
+	 Writes the cells of this board to the buffer. The mine plane is written as a bitmap of <code>(size + 7) / 8</code>
+	 bytes, the lowest cell in the lowest bit. It is followed by the open and flag attributes as one base 3 digit per
+	 cell, <code>0</code> for closed, <code>1</code> for open, and <code>2</code> for flagged, packed five cells to a
+	 byte with the lowest cell in the lowest digit.
+	 
+	 @param buffer the buffer to write to
+	 */
+	void write(ByteBuffer buffer)
+	{
+		for (int b = 0; b < (size + 7) >>> 3; b++)
+			buffer.put((byte) (mines[b >>> 3] >>> (b << 3)));
+		for (int i = 0; i < size; i += 5)
+		{
+			int v = 0;
+			for (int k = Math.min(size, i + 5) - 1; k >= i; k--)
+				v = v * 3 + (isOpen(k) ? 1 : hasFlag(k) ? 2 : 0);
+			buffer.put((byte) v);
+		}
+	}
+	
+	/**
+	 Replaces the cells of this board with cells read from the buffer, in the format of the <code>write</code> method.
+	 This invalidates the cached openings and 3BV value.
+	 
+	 @param buffer the buffer to read from
+	 */
+	void read(ByteBuffer buffer)
+	{
+		Arrays.fill(mines, 0);
+		Arrays.fill(open, 0);
+		Arrays.fill(flags, 0);
+		for (int b = 0; b < (size + 7) >>> 3; b++)
+			mines[b >>> 3] |= (buffer.get() & 0xFFL) << (b << 3);
+		int tail = size & 63;
+		if (tail != 0)
+			mines[words - 1] &= (1L << tail) - 1;
+		for (int i = 0; i < size; i += 5)
+		{
+			int v = buffer.get() & 0xFF;
+			for (int k = i; k < Math.min(size, i + 5); k++, v /= 3)
+				if (v % 3 == 1)
+					open[k >>> 6] |= 1L << k;
+				else if (v % 3 == 2)
+					flags[k >>> 6] |= 1L << k;
+		}
+		openings = -1;
+		remaining = -1;
+		if (frontierSize >= 0)
+			trackFrontier();
+		clearChanges();
+	}
+	
+	/**
+	 Returns the amount of mines on this board.
+	 
+	 @return the amount of mines on this board
+	 */
+	int countMines()
+	{
+		int n = 0;
+		for (long w : mines)
+			n += Long.bitCount(w);
+		return n;
+	}
+	
+	/**
+	 Returns a copy of the recorded cells, in the order the cells were opened.
+	 
+	 @return a copy of the recorded cells, empty if recording is disabled
+	 */
+	int[] getChanges()
+	{
+		return changes == null ? NO_CELLS : changes.toArray();
+	}
+	
+	/**
+	 Opens every cell that does not contain a flag. This does not cascade, as every such cell is opened directly.
+	 */
+	void openAll()
+	{
+		for (int w = 0; w < words; w++)
+			open[w] |= ~flags[w];
+		int tail = size & 63;
+		if (tail != 0)
+			open[words - 1] &= (1L << tail) - 1;
+		if (frontierSize >= 0)
+			trackFrontier();
+	}
+	
+	/**
+	 Returns the index of the first open cell that contains a mine.
+	 
+	 @return the index of the first open cell that contains a mine, -1 if there is none
+	 */
+	int findOpenMine()
+	{
+		for (int w = 0; w < words; w++)
+		{
+			long bits = open[w] & mines[w];
+			if (bits != 0)
+				return (w << 6) + Long.numberOfTrailingZeros(bits);
+		}
+		return -1;
+	}
+	
+	/**
+	 Returns the number of openings on this board. An opening is a group of connected cells with no nearby mines.
+	 
+	 @return the number of openings on this board
+	 */
+	int countOpenings()
+	{
+		if (openings < 0)
+			computeMetrics();
+		return openings;
+	}
+	
+	/**
+	 Returns the 3BV value of this board. That is, the number of openings plus the number of cells with nearby mines
+	 that do not border an opening.
+	 
+	 @return the 3BV value of this board
+	 */
+	int count3BV()
+	{
+		if (openings < 0)
+			computeMetrics();
+		return bbbv;
+	}
+	
+	/**
+	 Starts tracking the remaining 3BV of this board, which is the 3BV value less the openings and numbered cells
+	 already cleared. The openings are computed if needed, and the open cells are taken into account, so this may be
+	 invoked once the mines are final, at the first click or after reading a board. From then on, every cell opened by
+	 an open or chord action updates the remaining 3BV, until the mines change or the board is restarted.
+	 */
+	void track3BV()
+	{
+		if (openings < 0)
+			computeMetrics();
+		if (solved == null || solved.length < words)
+			solved = new long[mines.length];
+		else
+			Arrays.fill(solved, 0, words, 0);
+		if (marks == null)
+			marks = new IntQueue(64);
+		remaining = bbbv;
+		for (int w = 0; w < words; w++)
+			for (long bits = open[w] & ~mines[w]; bits != 0; bits &= bits - 1)
+			{
+				int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+				solve(i, getMineCount(i) == 0);
+			}
+	}
+	
+	/**
+	 Updates the remaining 3BV for a cell that has just been opened. A numbered cell that does not border an opening
+	 is one click of its own. An opening is cleared by its first cell to open, so the cells of the opening are marked
+	 as solved then, and opening any other of its cells later, as when a flag split the opening, counts for nothing.
+	 Each opening is marked once per game, so the cost is linear in the size of the board over a whole game.
+	 */
+	private void solve(int i, boolean zero)
+	{
+		if (!zero)
+		{
+			if ((bordered[i >>> 6] & 1L << i) == 0)
+				remaining--;
+		} else if ((solved[i >>> 6] & 1L << i) == 0)
+		{
+			remaining--;
+			fillOpening(i, solved, marks);
+		}
+	}
+	
+	/**
+	 Returns whether the remaining 3BV is tracked.
+	 
+	 @return <code>true</code> if the remaining 3BV is tracked
+	 
+	 @see #track3BV()
+	 */
+	boolean isTracking3BV()
+	{
+		return remaining >= 0;
+	}
+	
+	/**
+	 Returns the remaining 3BV of this board, or -1 if it is not tracked.
+	 
+	 @return the remaining 3BV of this board
+	 
+	 @see #track3BV()
+	 */
+	int getRemaining3BV()
+	{
+		return remaining;
+	}
+	
+	/**
+	 Starts tracking the frontier of this board, which is the set of closed cells, with or without a flag, that border
+	 an open cell without a mine. The frontier is built from the open cells once, and from then on every cell opened by
+	 an open or chord action removes itself from the frontier and adds its closed neighbors, so the frontier is not
+	 rebuilt from the whole board during a game, only when the board is revealed after a loss, or read. The frontier is
+	 kept up to date for every following game on this board.
+	 */
+	void trackFrontier()
+	{
+		if (frontier == null || frontier.length < words)
+			frontier = new long[mines.length];
+		else
+			Arrays.fill(frontier, 0, words, 0);
+		frontierSize = 0;
+		for (int w = 0; w < words; w++)
+			for (long bits = open[w] & ~mines[w]; bits != 0; bits &= bits - 1)
+				expandFrontier((w << 6) + Long.numberOfTrailingZeros(bits));
+	}
+	
+	private void expandFrontier(int i)
+	{
+		if ((frontier[i >>> 6] & 1L << i) != 0)
+		{
+			frontier[i >>> 6] &= ~(1L << i);
+			frontierSize--;
+		}
+		int x = getX(i);
+		int y = getY(i);
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+			{
+				int j = ny * width + nx;
+				if (!isOpen(j) && (frontier[j >>> 6] & 1L << j) == 0)
+				{
+					frontier[j >>> 6] |= 1L << j;
+					frontierSize++;
+				}
+			}
+	}
+	
+	/**
+	 Returns whether the frontier is tracked.
+	 
+	 @return <code>true</code> if the frontier is tracked
+	 
+	 @see #trackFrontier()
+	 */
+	boolean isTrackingFrontier()
+	{
+		return frontierSize >= 0;
+	}
+	
+	/**
+	 Returns the amount of cells in the frontier, or -1 if it is not tracked.
+	 
+	 @return the amount of cells in the frontier
+	 */
+	int getFrontierSize()
+	{
+		return frontierSize;
+	}
+	
+	/**
+	 Returns whether the specified cell is in the frontier. The frontier must be tracked.
+	 
+	 @param i the index of the cell
+	 
+	 @return <code>true</code> if the cell is in the frontier
+	 */
+	boolean isFrontier(int i)
+	{
+		return (frontier[i >>> 6] & 1L << i) != 0;
+	}
+	
+	/**
+	 Returns the first cell in the frontier at or after the specified cell, as <code>BitSet.nextSetBit</code> does. The
+	 frontier must be tracked.
+	 
+	 @param i the index of the cell to start from
+	 
+	 @return the index of the next cell in the frontier, -1 if there is none
+	 */
+	int nextFrontier(int i)
+	{
+		if (i >= size)
+			return -1;
+		int w = i >>> 6;
+		long bits = frontier[w] & -1L << i;
+		while (bits == 0)
+		{
+			if (++w >= words)
+				return -1;
+			bits = frontier[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(bits);
+	}
+	
+	/**
+	 Computes the openings and 3BV value in a single pass. Every opening is flood filled once, and the numbered cells
+	 bordering it are marked on the way, so the remaining numbered cells each count as one click. The marks are kept
+	 for tracking the remaining 3BV.
+	 */
+	private void computeMetrics()
+	{
+		if (bordered == null || bordered.length < words)
+			bordered = new long[mines.length];
+		else
+			Arrays.fill(bordered, 0, words, 0);
+		long[] visited = bordered;
+		int numbered = 0;
+		int shores = 0;
+		int n = 0;
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+			{
+				int i = y * width + x;
+				if (isMine(i))
+					continue;
+				if (countNeighbors(mines, x, y) != 0)
+					numbered++;
+				else if ((visited[i >>> 6] & 1L << i) == 0)
+				{
+					shores += fillOpening(i, visited, queue);
+					n++;
+				}
+			}
+		openings = n;
+		bbbv = n + numbered - shores;
+	}
+	
+	private int fillOpening(int i, long[] visited, IntQueue queue)
+	{
+		int shores = 0;
+		visited[i >>> 6] |= 1L << i;
+		queue.clear();
+		queue.offer(i);
+		while (!queue.isEmpty())
+		{
+			int c = queue.poll();
+			int x = getX(c);
+			int y = getY(c);
+			for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+				for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+				{
+					int j = ny * width + nx;
+					if ((visited[j >>> 6] & 1L << j) != 0)
+						continue;
+					visited[j >>> 6] |= 1L << j;
+					if (countNeighbors(mines, nx, ny) == 0)
+						queue.offer(j);
+					else
+						shores++;
+				}
+		}
+		return shores;
+	}
+	
+	/**
+	 Returns the cells of the <code>3x3</code> area around the specified cell, including the cell itself, in row-major
+	 order.
+	 
+	 @param i the index of the cell
+	 
+	 @return the indices of all cells in the area, in ascending order
+	 */
+	int[] getArea(int i)
+	{
+		int[] area = new int[9];
+		int n = getArea(i, area);
+		return n == 9 ? area : Arrays.copyOf(area, n);
+	}
+	
+	/**
+	 Stores the cells of the <code>3x3</code> area around the specified cell in the buffer, in ascending order.
+	 
+	 @param i    the index of the cell
+	 @param area the buffer to store the cells in, of at least 9 elements
+	 
+	 @return the amount of cells in the area
+	 */
+	int getArea(int i, int[] area)
+	{
+		int x = getX(i);
+		int y = getY(i);
+		int x0 = Math.max(0, x - 1);
+		int y0 = Math.max(0, y - 1);
+		int w = Math.min(width - 1, x + 1) - x0 + 1;
+		int h = Math.min(height - 1, y + 1) - y0 + 1;
+		for (int j = 0; j < w * h; j++)
+			area[j] = (y0 + j / w) * width + x0 + j % w;
+		return w * h;
+	}
+	
+	/**
+	 Returns the neighbors of the specified cell in row-major order.
+	 
+	 @param i the index of the cell
+	 
+	 @return the indices of all neighboring cells
+	 */
+	int[] getNeighbors(int i)
+	{
+		int x = getX(i);
+		int y = getY(i);
+		int[] buf = new int[8];
+		int n = 0;
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+				if (nx != x || ny != y)
+					buf[n++] = ny * width + nx;
+		return n == 8 ? buf : Arrays.copyOf(buf, n);
+	}
+	
+	/**
+	 Returns <code>true</code> if the specified coordinates lie on this board.
+	 
+	 @param x the x-coordinate of the cell
+	 @param y the y-coordinate of the cell
+	 
+	 @return <code>true</code> if the specified coordinates lie on this board
+	 */
+	boolean contains(int x, int y)
+	{
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+	
+	int index(int x, int y)
+	{
+		return y * width + x;
+	}
+	
+	int getX(int i)
+	{
+		return i % width;
+	}
+	
+	int getY(int i)
+	{
+		return i / width;
+	}
+	
+	int getWidth()
+	{
+		return width;
+	}
+	
+	int getHeight()
+	{
+		return height;
+	}
+	
+	int getSize()
+	{
+		return size;
+	}
+	
+	boolean isMine(int i)
+	{
+		return (mines[i >>> 6] & 1L << i) != 0;
+	}
+	
+	boolean isOpen(int i)
+	{
+		return (open[i >>> 6] & 1L << i) != 0;
+	}
+	
+	boolean hasFlag(int i)
+	{
+		return (flags[i >>> 6] & 1L << i) != 0;
+	}
+	
+	/**
+	 Returns the number of neighboring cells that contain a mine.
+	 
+	 @param i the index of the cell
+	 
+	 @return the number of neighboring cells that contain a mine
+	 */
+	int getMineCount(int i)
+	{
+		return countNeighbors(mines, getX(i), getY(i));
+	}
+	
+	/**
+	 Returns the number of neighboring cells that contain a flag.
+	 
+	 @param i the index of the cell
+	 
+	 @return the number of neighboring cells that contain a flag
+	 */
+	int getFlagCount(int i)
+	{
+		return countNeighbors(flags, getX(i), getY(i));
+	}
+	
+	private int countNeighbors(long[] plane, int x, int y)
+	{
+		int x0 = Math.max(0, x - 1);
+		int len = Math.min(width - 1, x + 1) - x0 + 1;
+		int n = 0;
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			n += countRun(plane, ny * width + x0, len);
+		int i = y * width + x;
+		if ((plane[i >>> 6] & 1L << i) != 0)
+			n--;
+		return n;
+	}
+	
+	private static int countRun(long[] plane, int start, int len)
+	{
+		int w = start >>> 6;
+		int b = start & 63;
+		long bits = plane[w] >>> b;
+		if (b + len > 64)
+			bits |= plane[w + 1] << 64 - b;
+		return Long.bitCount(bits & (1L << len) - 1);
+	}
+}
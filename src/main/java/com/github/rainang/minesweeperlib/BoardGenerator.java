@@ -0,0 +1,244 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ A stateless generator of <code>BoardSnapshot</code> objects.
+ <p>
+ The mines of a generated board depend only on its dimensions, mine count, seed, and kind of random number generator,
+ and are placed exactly as <code>Minesweeper.newGame(long)</code> places them with the <code>SAMPLED</code> mine layout.
+ A board generated here can therefore be played by setting a <code>Minesweeper</code> object to the same difficulty
+ and random number generator, and starting a new game with the same seed. The layout after the first click is
+ generated by specifying the clicked tile.
+ </p>
+ <p>
+ Parameters are clamped the same way as <code>Minesweeper.setDifficulty(int, int, int)</code> in large board mode. The
+ coordinates of a first click are clamped onto the board, so a click off the board is taken as a click on the nearest
+ tile.
+ </p>
+ */
+public final class BoardGenerator
+{
+	/**
+	 The maximum amount of boards sampled when generating a board that can be cleared without guessing.
+	 */
+	public static final int NO_GUESS_ATTEMPTS = 10000;
+	
+	private BoardGenerator() {}
+	
+	/**
+	 Generates a single board using the legacy random number generator.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 
+	 @return a snapshot of the generated board
+	 */
+	public static BoardSnapshot generate(int width, int height, int mines, long seed)
+	{
+		return generate(width, height, mines, seed, MineRandom.legacy());
+	}
+	
+	/**
+	 Generates a single board using the specified random number generator. The generator is reseeded, and may be
+	 reused for the next board.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 @param rng    the random number generator
+	 
+	 @return a snapshot of the generated board
+	 */
+	public static BoardSnapshot generate(int width, int height, int mines, long seed, MineRandom rng)
+	{
+		return sample(width, height, mines, seed, false, 0, 0, rng);
+	}
+	
+	/**
+	 Generates a single board as it is after the first click on the specified tile, using the legacy random number
+	 generator. No mines are placed within the <code>3x3</code> area around that tile. A click off the board is clamped
+	 onto the nearest tile.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 @param x      the x-coordinate of the first click
+	 @param y      the y-coordinate of the first click
+	 
+	 @return a snapshot of the generated board
+	 
+	 @see MineLayout#SAMPLED
+	 */
+	public static BoardSnapshot generate(int width, int height, int mines, long seed, int x, int y)
+	{
+		return generate(width, height, mines, seed, x, y, MineRandom.legacy());
+	}
+	
+	/**
+	 Generates a single board as it is after the first click on the specified tile, using the specified random number
+	 generator. No mines are placed within the <code>3x3</code> area around that tile. A click off the board is clamped
+	 onto the nearest tile. The generator is reseeded, and may be reused for the next board.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 @param x      the x-coordinate of the first click
+	 @param y      the y-coordinate of the first click
+	 @param rng    the random number generator
+	 
+	 @return a snapshot of the generated board
+	 
+	 @see MineLayout#SAMPLED
+	 */
+	public static BoardSnapshot generate(int width, int height, int mines, long seed, int x, int y, MineRandom rng)
+	{
+		return sample(width, height, mines, seed, true, x, y, rng);
+	}
+	
+	private static BoardSnapshot sample(int width, int height, int mines, long seed, boolean click, int x, int y,
+										MineRandom rng)
+	{
+		width = Math.min(Minesweeper.MAX_LARGE_SIZE, Math.max(5, width));
+		height = Math.min(Minesweeper.MAX_LARGE_SIZE, Math.max(5, height));
+		mines = Math.min(width * height - 10, Math.max(5, mines));
+		
+		Board board = new Board(width, height);
+		rng.setSeed(seed);
+		board.sampleMines(mines, rng, click ? clampedIndex(board, x, y) : -1);
+		return new BoardSnapshot(board, mines, seed);
+	}
+	
+	/**
+	 Returns the index of the tile nearest to the specified coordinates on the board.
+	 */
+	private static int clampedIndex(Board board, int x, int y)
+	{
+		return board.index(Math.min(board.getWidth() - 1, Math.max(0, x)),
+						   Math.min(board.getHeight() - 1, Math.max(0, y)));
+	}
+	
+	/**
+	 Generates a single board that can be cleared from the first click on the specified tile without guessing, using
+	 the legacy random number generator. A click off the board is clamped onto the nearest tile.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 @param x      the x-coordinate of the first click
+	 @param y      the y-coordinate of the first click
+	 
+	 @return a snapshot of the generated board
+	 
+	 @see #generateNoGuess(int, int, int, long, int, int, MineRandom)
+	 */
+	public static BoardSnapshot generateNoGuess(int width, int height, int mines, long seed, int x, int y)
+	{
+		return generateNoGuess(width, height, mines, seed, x, y, MineRandom.legacy());
+	}
+	
+	/**
+	 Generates a single board that can be cleared from the first click on the specified tile without guessing, using
+	 the specified random number generator. A click off the board is clamped onto the nearest tile.
+	 <p>
+	 The generator is seeded once, and boards are sampled from its continued sequence as with
+	 <code>generate(width, height, mines, seed, x, y, rng)</code> until a logic solver can clear one from the first
+	 click. If the first board is solvable, the result is identical to that method's. If no solvable board is found
+	 within <code>NO_GUESS_ATTEMPTS</code> boards, as with densities that always require a guess, the last board is
+	 returned.
+	 </p>
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 @param x      the x-coordinate of the first click
+	 @param y      the y-coordinate of the first click
+	 @param rng    the random number generator
+	 
+	 @return a snapshot of the generated board
+	 */
+	public static BoardSnapshot generateNoGuess(int width, int height, int mines, long seed, int x, int y,
+			MineRandom rng)
+	{
+		width = Math.min(Minesweeper.MAX_LARGE_SIZE, Math.max(5, width));
+		height = Math.min(Minesweeper.MAX_LARGE_SIZE, Math.max(5, height));
+		mines = Math.min(width * height - 10, Math.max(5, mines));
+		
+		Board board = new Board(width, height);
+		placeNoGuess(new LogicSolver(board), mines, seed, clampedIndex(board, x, y), rng);
+		return new BoardSnapshot(board, mines, seed);
+	}
+	
+	/**
+	 Samples mines onto the solver's board until it can be cleared from the specified first click without guessing,
+	 or until <code>NO_GUESS_ATTEMPTS</code> boards have been sampled.
+	 
+	 @param solver the solver of the board to place mines on
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 @param start  the index of the first click
+	 @param rng    the random number generator
+	 
+	 @return <code>true</code> if the board can be cleared without guessing
+	 */
+	static boolean placeNoGuess(LogicSolver solver, int mines, long seed, int start, MineRandom rng)
+	{
+		Board board = solver.getBoard();
+		rng.setSeed(seed);
+		for (int i = 0; i < NO_GUESS_ATTEMPTS; i++)
+		{
+			board.clearMines();
+			board.sampleMines(mines, rng, start);
+			if (solver.solve(start, mines))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 Generates a board for every seed in parallel using the legacy random number generator.
+	 
+	 @param width  the width of the boards
+	 @param height the height of the boards
+	 @param mines  the amount of mines on each board
+	 @param seeds  the seeds to use for generating mines
+	 
+	 @return snapshots of the generated boards, in the order of <code>seeds</code>
+	 
+	 @see #generate(int, int, int, long[], Supplier)
+	 */
+	public static BoardSnapshot[] generate(int width, int height, int mines, long[] seeds)
+	{
+		return generate(width, height, mines, seeds, MineRandom::legacy);
+	}
+	
+	/**
+	 Generates a board for every seed in parallel, using the common <code>ForkJoinPool</code>. Each board is identical
+	 to the one returned by <code>generate(width, height, mines, seed, rng)</code> for its seed and a generator of the
+	 same kind, regardless of how the work is split between threads.
+	 
+	 @param width  the width of the boards
+	 @param height the height of the boards
+	 @param mines  the amount of mines on each board
+	 @param seeds  the seeds to use for generating mines
+	 @param rng    the factory of random number generators, invoked once for every board
+	 
+	 @return snapshots of the generated boards, in the order of <code>seeds</code>
+	 */
+	public static BoardSnapshot[] generate(int width, int height, int mines, long[] seeds, Supplier<MineRandom> rng)
+	{
+		BoardSnapshot[] boards = new BoardSnapshot[seeds.length];
+		IntStream.range(0, seeds.length)
+				 .parallel()
+				 .forEach(i -> boards[i] = generate(width, height, mines, seeds[i], rng.get()));
+		return boards;
+	}
+}
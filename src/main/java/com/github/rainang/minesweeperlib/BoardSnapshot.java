@@ -0,0 +1,104 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ An immutable snapshot of a generated board. A snapshot holds the mine layout of a board before the first click, along
+ with its openings and 3BV value, and may be shared freely between threads.
+ 
+ @see BoardGenerator
+ */
+public final class BoardSnapshot
+{
+	private final Board board;
+	
+	private final int mines;
+	
+	private final long seed;
+	
+	/**
+	 Constructs a snapshot of the specified board. The board must not be modified after this constructor returns.
+	 
+	 @param board the board to reference
+	 @param mines the amount of mines on the board
+	 @param seed  the seed used for generating the board's mines
+	 */
+	BoardSnapshot(Board board, int mines, long seed)
+	{
+		board.count3BV();
+		this.board = board;
+		this.mines = mines;
+		this.seed = seed;
+	}
+	
+	/**
+	 Returns the width of the board.
+	 
+	 @return the width of the board
+	 */
+	public int getWidth()
+	{
+		return board.getWidth();
+	}
+	
+	/**
+	 Returns the height of the board.
+	 
+	 @return the height of the board
+	 */
+	public int getHeight()
+	{
+		return board.getHeight();
+	}
+	
+	/**
+	 Returns the amount of mines on the board.
+	 
+	 @return the amount of mines on the board
+	 */
+	public int getMines()
+	{
+		return mines;
+	}
+	
+	/**
+	 Returns the seed used for generating this board's mines.
+	 
+	 @return the seed used for generating this board's mines
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+	
+	/**
+	 Returns the <code>Tile</code> object at the specified coordinates. Tiles of a snapshot are never open or flagged.
+	 
+	 @param x the x-coordinate of the tile
+	 @param y the y-coordinate of the tile
+	 
+	 @return the <code>Tile</code> object at the specified coordinates, null if the coordinates are invalid
+	 */
+	public Tile getTile(int x, int y)
+	{
+		return board.contains(x, y) ? new Tile(board, board.index(x, y)) : null;
+	}
+	
+	/**
+	 Returns the number of openings on this board.
+	 
+	 @return the number of openings on this board
+	 */
+	public int countOpenings()
+	{
+		return board.countOpenings();
+	}
+	
+	/**
+	 Returns the 3BV value of this board.
+	 
+	 @return the 3BV value of this board
+	 */
+	public int count3BV()
+	{
+		return board.count3BV();
+	}
+}
@@ -0,0 +1,745 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ A thread-safe Minesweeper game, on which several players may act at the same time from different threads.
+ <p>
+ The board is divided into stripes of consecutive cells, each guarded by a lock of its own. An action locks, in
+ ascending order, the range of stripes it may change: the stripe of its tile, and for a tile with no nearby mines,
+ every stripe of the opening the tile belongs to. The openings are computed once the mines are placed, so the range
+ is known before the action starts. Actions on disjoint parts of the board proceed in parallel, and every action,
+ including a whole cascade, takes effect atomically.
+ </p>
+ <p>
+ The game state and the amount of cleared tiles are packed into a single atomic value. An action that opens tiles
+ commits them with a compare-and-set of that value, which is also where wins and losses are detected, so exactly one
+ action ends the game. An action that finds the game ended by another player while it held its locks closes the tiles
+ it opened again, and has no effect. The other counters are kept in <code>LongAdder</code> objects, and listeners
+ are held in a copy-on-write list. Starting and restarting a game, the first click, and revealing the board after a
+ loss lock the whole board.
+ </p>
+ <p>
+ Mines are generated with the legacy random number generator and the <code>SAMPLED</code> mine layout, so a seed
+ produces the same game as on a <code>Minesweeper</code> object with default settings. Pausing, no-flagging, and
+ no-guessing games are not supported. Reading tiles does not lock the board, so a view of the board may be
+ inconsistent while actions are in progress.
+ </p>
+ */
+public final class ConcurrentMinesweeper
+{
+	private static final int MAX_STRIPES = 1024;
+	
+	private static final long INIT = 0;
+	
+	private static final long PLAY = 1L << 32;
+	
+	private static final long WON = 2L << 32;
+	
+	private static final long LOST = 3L << 32;
+	
+	private static final long STATE = 3L << 32;
+	
+	private static final long CLEARED = 0xFFFFFFFFL;
+	
+	private final Board board;
+	
+	private final int mines;
+	
+	private final int winCondition;
+	
+	private final int wordsPerStripe;
+	
+	private final ReentrantLock[] stripes;
+	
+	private final ReentrantReadWriteLock gameLock = new ReentrantReadWriteLock();
+	
+	private final int[] opening;
+	
+	private final IntList openingStart = new IntList(64);
+	
+	private final IntList openingEnd = new IntList(64);
+	
+	private final MineRandom rng = MineRandom.legacy();
+	
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+	
+	private final AtomicLong status = new AtomicLong();
+	
+	private final LongAdder clicks = new LongAdder();
+	
+	private final LongAdder actions = new LongAdder();
+	
+	private final LongAdder flagsUsed = new LongAdder();
+	
+	private final ThreadLocal<IntQueue> queue = ThreadLocal.withInitial(() -> new IntQueue(64));
+	
+	private final ThreadLocal<IntList> changes = ThreadLocal.withInitial(() -> new IntList(64));
+	
+	private volatile long seed;
+	
+	private volatile boolean restarted;
+	
+	private volatile int losingTile = -1;
+	
+	private volatile int generation;
+	
+	private volatile long timeStart;
+	
+	private volatile long timeEnd;
+	
+	/**
+	 Constructs a new game with the specified dimensions, and generates its mines with a random seed.
+	 
+	 @param width  the width of the board, from 5 to 10000
+	 @param height the height of the board, from 5 to 10000
+	 @param mines  the amount of mines, from 5 to <code>width * height - 10</code>
+	 
+	 @throws IllegalArgumentException if a parameter is out of range
+	 */
+	public ConcurrentMinesweeper(int width, int height, int mines)
+	{
+		if (width < 5 || height < 5 || width > Minesweeper.MAX_LARGE_SIZE || height > Minesweeper.MAX_LARGE_SIZE)
+			throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+		if (mines < 5 || mines > width * height - 10)
+			throw new IllegalArgumentException("Invalid amount of mines: " + mines);
+		this.board = new Board(width, height);
+		this.mines = mines;
+		this.winCondition = width * height - mines;
+		this.opening = new int[width * height];
+		
+		int words = (width * height + 63) >>> 6;
+		this.wordsPerStripe = (words + MAX_STRIPES - 1) / MAX_STRIPES;
+		this.stripes = new ReentrantLock[(words + wordsPerStripe - 1) / wordsPerStripe];
+		for (int k = 0; k < stripes.length; k++)
+			stripes[k] = new ReentrantLock();
+		newGame();
+	}
+	
+	/**
+	 The listener interface for receiving game events from a <code>ConcurrentMinesweeper</code>. Listeners are invoked
+	 on the thread that performed the action, after the board is unlocked, so events of different players may be
+	 delivered concurrently and out of order.
+	 */
+	public interface Listener
+	{
+		/**
+		 Invoked when a game event occurs.
+		 
+		 @param event the game event
+		 @param game  the game where the event originated
+		 @param tile  the tile where the event originated, or <code>null</code> if the event does not involve a tile
+		 */
+		void onGameEvent(GameEvent event, ConcurrentMinesweeper game, Tile tile);
+	}
+	
+	/**
+	 Registers a game event listener.
+	 
+	 @param listener the listener to register
+	 
+	 @return <code>true</code> if the listener was successfully added
+	 */
+	public boolean addListener(Listener listener)
+	{
+		return listeners.add(listener);
+	}
+	
+	/**
+	 Removes a game event listener.
+	 
+	 @param listener the listener to remove
+	 
+	 @return <code>true</code> if the listener was successfully removed
+	 */
+	public boolean removeListener(Listener listener)
+	{
+		return listeners.remove(listener);
+	}
+	
+	private void fireEvent(GameEvent event, Tile tile)
+	{
+		for (Listener l : listeners)
+			l.onGameEvent(event, this, tile);
+	}
+	
+	/**
+	 Generates a new board with a random seed.
+	 */
+	public void newGame()
+	{
+		newGame(rng.nextLong());
+	}
+	
+	/**
+	 Generates a new board with the specified seed.
+	 
+	 @param seed the seed to use for generating mines
+	 */
+	public void newGame(long seed)
+	{
+		gameLock.writeLock()
+				.lock();
+		try
+		{
+			this.seed = seed;
+			rng.setSeed(seed);
+			board.reset();
+			board.sampleMines(mines, rng, -1);
+			board.count3BV();
+			reset(false);
+		} finally
+		{
+			gameLock.writeLock()
+					.unlock();
+		}
+		fireEvent(GameEvent.NEW_GAME_EVENT, null);
+	}
+	
+	/**
+	 Resets the board, leaving the mines as they are.
+	 */
+	public void restartGame()
+	{
+		gameLock.writeLock()
+				.lock();
+		try
+		{
+			board.restart();
+			reset(true);
+		} finally
+		{
+			gameLock.writeLock()
+					.unlock();
+		}
+		fireEvent(GameEvent.RESTART_GAME_EVENT, null);
+	}
+	
+	private void reset(boolean restart)
+	{
+		status.set(INIT);
+		clicks.reset();
+		actions.reset();
+		flagsUsed.reset();
+		losingTile = -1;
+		restarted = restart;
+		timeStart = 0;
+		timeEnd = 0;
+		generation++;
+	}
+	
+	/**
+	 Starts the game with the first click, which moves the mines away from it unless the game was restarted. The
+	 openings are computed for the final layout, and the click itself is performed while the board is still locked.
+	 
+	 @return the result of the click, or <code>null</code> if the game was started by another thread
+	 */
+	private Integer start(int t)
+	{
+		int result;
+		long end;
+		gameLock.writeLock()
+				.lock();
+		try
+		{
+			if (status.get() != INIT)
+				return null;
+			if (!restarted)
+			{
+				rng.setSeed(seed);
+				board.clearMines();
+				board.sampleMines(mines, rng, t);
+				board.count3BV();
+			}
+			computeOpenings();
+			timeStart = System.currentTimeMillis();
+			status.set(PLAY);
+			
+			IntList changes = this.changes.get();
+			changes.clear();
+			result = board.open(t, queue.get(), changes);
+			end = commit(result, changes) & STATE;
+			clicks.increment();
+			if (result > 0)
+				actions.increment();
+			if (end == LOST)
+				revealMines();
+		} finally
+		{
+			gameLock.writeLock()
+					.unlock();
+		}
+		fireEvents(GameEvent.OPEN_EVENT, t, result, end);
+		return result;
+	}
+	
+	/**
+	 Labels every cell without nearby mines with the opening it belongs to, and records the range of cells each opening
+	 may open, including the numbered cells bordering it.
+	 */
+	private void computeOpenings()
+	{
+		Arrays.fill(opening, -1);
+		openingStart.clear();
+		openingEnd.clear();
+		IntQueue queue = this.queue.get();
+		int width = board.getWidth();
+		int height = board.getHeight();
+		for (int i = 0; i < opening.length; i++)
+		{
+			if (opening[i] >= 0 || board.isMine(i) || board.getMineCount(i) != 0)
+				continue;
+			int id = openingStart.size();
+			int first = i;
+			int last = i;
+			opening[i] = id;
+			queue.clear();
+			queue.offer(i);
+			while (!queue.isEmpty())
+			{
+				int c = queue.poll();
+				int x = board.getX(c);
+				int y = board.getY(c);
+				for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+					for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+					{
+						int j = ny * width + nx;
+						first = Math.min(first, j);
+						last = Math.max(last, j);
+						if (opening[j] < 0 && board.getMineCount(j) == 0)
+						{
+							opening[j] = id;
+							queue.offer(j);
+						}
+					}
+			}
+			openingStart.add(first);
+			openingEnd.add(last);
+		}
+	}
+	
+	private int stripe(int i)
+	{
+		return (i >>> 6) / wordsPerStripe;
+	}
+	
+	private int firstStripe(int i)
+	{
+		return stripe(opening[i] < 0 ? i : openingStart.get(opening[i]));
+	}
+	
+	private int lastStripe(int i)
+	{
+		return stripe(opening[i] < 0 ? i : openingEnd.get(opening[i]));
+	}
+	
+	/**
+	 Attempts to perform a flag action on the specified coordinate. A flag action cannot occur if the tile is open or
+	 the game is over.
+	 
+	 @param x the x-coordinate of the tile
+	 @param y the y-coordinate of the tile
+	 
+	 @return <code>true</code> if the flag action was successful
+	 */
+	public boolean flag(int x, int y)
+	{
+		if (!board.contains(x, y))
+			return false;
+		int t = board.index(x, y);
+		boolean b;
+		long state;
+		gameLock.readLock()
+				.lock();
+		try
+		{
+			ReentrantLock lock = stripes[stripe(t)];
+			lock.lock();
+			try
+			{
+				if (isOver(status.get()))
+					return false;
+				b = board.toggleFlag(t);
+				// the game may have ended since it was checked, in which case this flag must not take effect
+				state = status.get() & STATE;
+				if (isOver(state))
+				{
+					if (b)
+						board.toggleFlag(t);
+					return false;
+				}
+				if (state == INIT)
+					return b;
+				clicks.increment();
+				if (b)
+				{
+					actions.increment();
+					flagsUsed.add(board.hasFlag(t) ? 1 : -1);
+				}
+			} finally
+			{
+				lock.unlock();
+			}
+		} finally
+		{
+			gameLock.readLock()
+					.unlock();
+		}
+		fireEvent(GameEvent.FLAG_EVENT, new Tile(board, t));
+		return b;
+	}
+	
+	/**
+	 Attempts to perform an open action on the specified coordinate. An open action cannot occur if the tile is open or
+	 contains a flag, or the game is over.
+	 
+	 @param x the x-coordinate of the tile
+	 @param y the y-coordinate of the tile
+	 
+	 @return the amount of tiles opened. This will be negated if a mine is revealed.
+	 */
+	public int open(int x, int y)
+	{
+		return doAction(x, y, false);
+	}
+	
+	/**
+	 Attempts to perform a chord action on the specified coordinate. A chord action cannot occur if this tile is
+	 <i>not</i> open, no mines are nearby, the nearby mine and flag counts are not equal, or the game is over.
+	 
+	 @param x the x-coordinate of the tile
+	 @param y the y-coordinate of the tile
+	 
+	 @return the amount of tiles opened. This will be negated if a mine is revealed.
+	 */
+	public int chord(int x, int y)
+	{
+		return doAction(x, y, true);
+	}
+	
+	private int doAction(int x, int y, boolean chord)
+	{
+		if (!board.contains(x, y))
+			return 0;
+		int t = board.index(x, y);
+		
+		while (true)
+		{
+			long s = status.get();
+			if (isOver(s))
+				return 0;
+			if (s == INIT)
+			{
+				if (chord)
+					return 0;
+				Integer result = start(t);
+				if (result != null)
+					return result;
+				continue;
+			}
+			
+			int result;
+			long end;
+			int generation;
+			gameLock.readLock()
+					.lock();
+			try
+			{
+				// the game may have been restarted since the state was read
+				if (status.get() == INIT)
+					continue;
+				generation = this.generation;
+				int first = firstStripe(t);
+				int last = lastStripe(t);
+				if (chord)
+					for (int j : board.getArea(t))
+					{
+						first = Math.min(first, firstStripe(j));
+						last = Math.max(last, lastStripe(j));
+					}
+				for (int k = first; k <= last; k++)
+					stripes[k].lock();
+				try
+				{
+					IntList changes = this.changes.get();
+					changes.clear();
+					result = chord ? board.chord(t, queue.get(), changes) : board.open(t, queue.get(), changes);
+					long next = commit(result, changes);
+					if (next < 0)
+						return 0;
+					end = next & STATE;
+				} finally
+				{
+					for (int k = last; k >= first; k--)
+						stripes[k].unlock();
+				}
+				clicks.increment();
+				if (result > 0)
+					actions.increment();
+			} finally
+			{
+				gameLock.readLock()
+						.unlock();
+			}
+			
+			if (end == LOST)
+				revealMines(generation);
+			fireEvents(chord ? GameEvent.CHORD_EVENT : GameEvent.OPEN_EVENT, t, result, end);
+			return result;
+		}
+	}
+	
+	/**
+	 Adds the opened tiles to the cleared tiles, and ends the game if a mine was revealed or every tile without a mine
+	 is cleared. If the game has ended in the meantime, the opened tiles are closed again.
+	 
+	 @return the status after the action, or -1 if the action did not take effect
+	 */
+	private long commit(int result, IntList changes)
+	{
+		long n = Math.abs(result);
+		while (true)
+		{
+			long s = status.get();
+			if ((s & STATE) != PLAY)
+			{
+				for (int k = 0; k < changes.size(); k++)
+					board.close(changes.get(k));
+				return -1;
+			}
+			if (n == 0)
+				return s;
+			long cleared = (s & CLEARED) + n;
+			long next = cleared | (result < 0 ? LOST : cleared == winCondition ? WON : PLAY);
+			long time = System.currentTimeMillis();
+			if (status.compareAndSet(s, next))
+			{
+				if ((next & STATE) != PLAY)
+					timeEnd = time;
+				return next;
+			}
+		}
+	}
+	
+	/**
+	 Opens every tile after a loss, unless a new game has been started in the meantime. The whole board is locked, so
+	 every action in progress has finished, and has either taken effect before the loss or been undone.
+	 
+	 @param generation the generation of the lost game
+	 */
+	private void revealMines(int generation)
+	{
+		gameLock.writeLock()
+				.lock();
+		try
+		{
+			if (this.generation == generation)
+				revealMines();
+		} finally
+		{
+			gameLock.writeLock()
+					.unlock();
+		}
+	}
+	
+	private void revealMines()
+	{
+		losingTile = board.findOpenMine();
+		board.openAll();
+	}
+	
+	private void fireEvents(GameEvent event, int t, int result, long end)
+	{
+		if (result == 0 || listeners.isEmpty())
+			return;
+		Tile tile = new Tile(board, t);
+		fireEvent(event, tile);
+		if (end == LOST)
+			fireEvent(GameEvent.LOSE_EVENT, tile);
+		else if (end == WON)
+			fireEvent(GameEvent.WIN_EVENT, tile);
+	}
+	
+	private static boolean isOver(long status)
+	{
+		long state = status & STATE;
+		return state == WON || state == LOST;
+	}
+	
+	/**
+	 Returns the width of the board.
+	 
+	 @return the width of the board
+	 */
+	public int getWidth()
+	{
+		return board.getWidth();
+	}
+	
+	/**
+	 Returns the height of the board.
+	 
+	 @return the height of the board
+	 */
+	public int getHeight()
+	{
+		return board.getHeight();
+	}
+	
+	/**
+	 Returns the amount of mines on the board.
+	 
+	 @return the amount of mines on the board
+	 */
+	public int getMines()
+	{
+		return mines;
+	}
+	
+	/**
+	 Returns a tile from the board. The tile reads the board without locking it.
+	 
+	 @param x the x-coordinate of the tile
+	 @param y the y-coordinate of the tile
+	 
+	 @return the tile at the specified coordinates, or <code>null</code> if the coordinates are out of bounds
+	 */
+	public Tile getTile(int x, int y)
+	{
+		return board.contains(x, y) ? new Tile(board, board.index(x, y)) : null;
+	}
+	
+	/**
+	 Returns the amount of tiles opened by actions, including the revealed mine of a lost game.
+	 
+	 @return the amount of tiles cleared
+	 */
+	public int getCleared()
+	{
+		return (int) (status.get() & CLEARED);
+	}
+	
+	/**
+	 Returns the amount of clicks, summed over all players.
+	 
+	 @return the amount of clicks
+	 */
+	public int getClicks()
+	{
+		return clicks.intValue();
+	}
+	
+	/**
+	 Returns the amount of actions that changed the board, summed over all players.
+	 
+	 @return the amount of actions
+	 */
+	public int getActions()
+	{
+		return actions.intValue();
+	}
+	
+	/**
+	 Returns the amount of flags on the board placed after the first click.
+	 
+	 @return the amount of flags used
+	 */
+	public int getFlagsUsed()
+	{
+		return flagsUsed.intValue();
+	}
+	
+	/**
+	 Returns the time since the first click in milliseconds, or the duration of the game once it is over.
+	 
+	 @return the game time in milliseconds
+	 */
+	public long getTime()
+	{
+		long s = status.get();
+		if (s == INIT)
+			return 0;
+		long end = timeEnd;
+		// the end time is set just after the game ends
+		if (!isOver(s) || end == 0)
+			end = System.currentTimeMillis();
+		return end - timeStart;
+	}
+	
+	/**
+	 Returns the seed used for generating the mines.
+	 
+	 @return the seed used for generating the mines
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+	
+	/**
+	 Returns the state of the game, which is never <code>PAUSE</code>.
+	 
+	 @return the state of the game
+	 */
+	public GameState getGameState()
+	{
+		long s = status.get();
+		return s == INIT ? GameState.INIT : isOver(s) ? GameState.END : GameState.PLAY;
+	}
+	
+	/**
+	 Returns <code>true</code> if the game is over, and the players won.
+	 
+	 @return <code>true</code> if the game is over, and the players won
+	 */
+	public boolean isGameWon()
+	{
+		return (status.get() & STATE) == WON;
+	}
+	
+	/**
+	 Returns the tile with the mine that was revealed, once the board has been revealed after a loss.
+	 
+	 @return the losing tile, or <code>null</code> if the game is not lost or the board is not revealed yet
+	 */
+	public Tile getLosingTile()
+	{
+		int t = losingTile;
+		return t < 0 ? null : new Tile(board, t);
+	}
+	
+	/**
+	 Returns <code>true</code> if the game was restarted.
+	 
+	 @return <code>true</code> if the game was restarted
+	 */
+	public boolean isRestarted()
+	{
+		return restarted;
+	}
+	
+	/**
+	 Returns the 3BV value of the board. This may return an inaccurate value before the first click.
+	 
+	 @return the 3BV value of the board
+	 */
+	public int count3BV()
+	{
+		gameLock.readLock()
+				.lock();
+		try
+		{
+			return board.count3BV();
+		} finally
+		{
+			gameLock.readLock()
+					.unlock();
+		}
+	}
+}
@@ -235,7 +235,7 @@ class ConsoleDemo
 		{
 			if (tile.isMine())
 			{
-				if (tile == ms.getLosingTile())
+				if (tile.equals(ms.getLosingTile()))
 					System.out.print(ANSI_RED);
 				else
 					System.out.print(ANSI_WHITE);
@@ -1,5 +1,7 @@
 package com.github.rainang.minesweeperlib;
 
+import java.util.List;
+
 /**
  An enum of game event types.
  */
@@ -33,4 +35,36 @@ public enum GameEvent
 		 */
 		void onGameEvent(GameEvent event, Minesweeper minesweeper, Tile tile);
 	}
+	
+	/**
+	 The listener interface for receiving game events with the cells they changed. The object created with a class
+	 implementing this interface is registered to a <code>Minesweeper</code> object, using the
+	 <code>addGameEventDataListener</code> method. When the game event occurs, that object's <code>onGameEvent</code>
+	 method is invoked, after every <code>Listener</code> of the game.
+	 */
+	public interface DataListener
+	{
+		/**
+		 Invoked when a game event occurs.
+		 
+		 @param data the event
+		 */
+		void onGameEvent(GameEventData data);
+	}
+	
+	/**
+	 The listener interface for receiving game events in batches from an <code>AsyncEventDispatcher</code>. The
+	 object created with a class implementing this interface is registered to a dispatcher, using the
+	 <code>addBatchListener</code> method.
+	 */
+	public interface BatchListener
+	{
+		/**
+		 Invoked on the consumer thread of the dispatcher with the next events, in the order they occurred. The list
+		 is only valid for the duration of the call.
+		 
+		 @param events the next events
+		 */
+		void onGameEvents(List<GameEventData> events);
+	}
 }
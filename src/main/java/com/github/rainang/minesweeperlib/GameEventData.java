@@ -0,0 +1,165 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Arrays;
+
+/**
+ An immutable record of a game event, as delivered to a <code>GameEvent.DataListener</code>.
+ <p>
+ Besides the tile where the event originated, the record lists the indices of the cells the event changed, so a
+ client can apply the change without scanning the board. The index of the cell at <code>(x, y)</code> is
+ <code>y * width + x</code>.
+ </p>
+ <p>
+ The tile of an event is a view of the live board. By the time a listener receives the event, the state of the tile
+ may have changed, but its coordinates have not. The changed cells are a copy, and do not change.
+ </p>
+ */
+public final class GameEventData
+{
+	private final GameEvent event;
+	
+	private final Minesweeper minesweeper;
+	
+	private final int generation;
+	
+	private final Tile tile;
+	
+	private final int[] changedCells;
+	
+	private final long timestamp;
+	
+	private final int count;
+	
+	GameEventData(GameEvent event, Minesweeper minesweeper, int generation, Tile tile, int[] changedCells)
+	{
+		this(event, minesweeper, generation, tile, changedCells, System.currentTimeMillis(), 1);
+	}
+	
+	private GameEventData(GameEvent event, Minesweeper minesweeper, int generation, Tile tile, int[] changedCells,
+						  long timestamp, int count)
+	{
+		this.event = event;
+		this.minesweeper = minesweeper;
+		this.generation = generation;
+		this.tile = tile;
+		this.changedCells = changedCells;
+		this.timestamp = timestamp;
+		this.count = count;
+	}
+	
+	/**
+	 Returns <code>true</code> if the specified earlier event can be coalesced into this event. That is, if both are of
+	 the same type, and occurred on the same board of the same game.
+	 */
+	boolean canCoalesce(GameEventData previous)
+	{
+		return previous.event == event && previous.minesweeper == minesweeper && previous.generation == generation;
+	}
+	
+	/**
+	 Returns a copy of this event that also stands for the specified earlier event, and lists the cells changed by both.
+	 
+	 @throws IllegalArgumentException if the earlier event cannot be coalesced into this event
+	 */
+	GameEventData coalesce(GameEventData previous)
+	{
+		if (!canCoalesce(previous))
+			throw new IllegalArgumentException("Events of different types, games, or boards cannot be coalesced");
+		int[] cells = Arrays.copyOf(previous.changedCells, previous.changedCells.length + changedCells.length);
+		System.arraycopy(changedCells, 0, cells, previous.changedCells.length, changedCells.length);
+		return new GameEventData(event, minesweeper, generation, tile, cells, timestamp, count + previous.count);
+	}
+	
+	/**
+	 Returns the event type.
+	 
+	 @return the event type
+	 */
+	public GameEvent getEvent()
+	{
+		return event;
+	}
+	
+	/**
+	 Returns the event source.
+	 
+	 @return the event source
+	 */
+	public Minesweeper getMinesweeper()
+	{
+		return minesweeper;
+	}
+	
+	/**
+	 Returns the generation of the board this event occurred on. The generation of a game changes with every new game,
+	 restart, and restored state, so a client can tell whether the changed cells of this event apply to the board it
+	 holds.
+	 
+	 @return the generation of the board this event occurred on
+	 */
+	public int getGeneration()
+	{
+		return generation;
+	}
+	
+	/**
+	 Returns the tile where this event originated. This is only present for <code>OPEN_EVENT</code>,
+	 <code>CHORD_EVENT</code>, and <code>FLAG_EVENT</code> types, null otherwise.
+	 
+	 @return the tile where this event originated
+	 */
+	public Tile getTile()
+	{
+		return tile;
+	}
+	
+	/**
+	 Returns the indices of the cells changed by this event, in the order they changed. For <code>OPEN_EVENT</code> and
+	 <code>CHORD_EVENT</code> types, these are the cells opened by the action, including a revealed mine. For the
+	 <code>FLAG_EVENT</code> type, this is the flagged or unflagged cell. For every other type, this is empty; in
+	 particular, a <code>LOSE_EVENT</code> reveals the whole board, and a new or restarted game resets it.
+	 <p>
+	 The array is shared by every listener of this event, and must not be modified.
+	 </p>
+	 
+	 @return the indices of the cells changed by this event
+	 */
+	public int[] getChangedCells()
+	{
+		return changedCells;
+	}
+	
+	/**
+	 Returns the amount of cells changed by this event.
+	 
+	 @return the amount of cells changed by this event
+	 */
+	public int getChangedCount()
+	{
+		return changedCells.length;
+	}
+	
+	/**
+	 Returns the time this event occurred, in milliseconds since the epoch.
+	 
+	 @return the time this event occurred
+	 */
+	public long getTimestamp()
+	{
+		return timestamp;
+	}
+	
+	/**
+	 Returns the amount of events this event stands for. This is 1, unless events of the same type were coalesced into
+	 this event, in which case this event is the latest of them, and its changed cells are those of all of them. A cell
+	 may then be listed more than once.
+	 
+	 @return the amount of events this event stands for
+	 
+	 @see OverflowPolicy#COALESCE
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+}
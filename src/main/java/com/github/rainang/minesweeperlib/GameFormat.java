@@ -0,0 +1,215 @@
+package com.github.rainang.minesweeperlib;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ A compact, versioned binary format for the state of a <code>Minesweeper</code> game, including a game in progress.
+ <p>
+ A record is written to and read from a <code>ByteBuffer</code> directly, without intermediate objects, and restores
+ the game into an existing <code>Minesweeper</code> object, reusing its board if the dimensions are the same. An expert
+ board takes about 180 bytes. Records can be appended to and read back from a <code>FileChannel</code>.
+ </p>
+ <p>
+ Version 1 of the format is laid out as follows. Varints are unsigned LEB128, and signed values are zigzag encoded.
+ </p>
+ <ol>
+ <li>varint: length of the rest of the record</li>
+ <li>byte: format version</li>
+ <li>varint: width, then height</li>
+ <li>8 bytes: seed, big-endian</li>
+ <li>byte: bit 0 set if no-flagging, bit 1 set if restarted, bits 2-3 the game state ordinal</li>
+ <li>varint: clicks, actions, flags used (signed), and tiles cleared</li>
+ <li>varint: game time in milliseconds</li>
+ <li>varint: index of the losing tile plus one, or 0 if the game is not lost</li>
+ <li>mine bitmap, <code>(width * height + 7) / 8</code> bytes, the lowest tile index in the lowest bit</li>
+ <li>tile states, one base 3 digit per tile: 0 for closed, 1 for open, and 2 for flagged, five tiles to a byte with the
+ lowest tile index in the lowest digit</li>
+ </ol>
+ <p>
+ Settings that do not describe the board, such as the mine layout, the random number generator, and no-guessing mode,
+ are not part of the format.
+ </p>
+ */
+public final class GameFormat
+{
+	/**
+	 The version of the format written by this class.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 The maximum size of a record header, excluding the tiles.
+	 */
+	private static final int MAX_HEADER = 5 + 1 + 5 + 5 + 8 + 1 + 5 * 4 + 10 + 5;
+	
+	private GameFormat() {}
+	
+	/**
+	 Returns the maximum size of a record for a board with the specified dimensions.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 
+	 @return the maximum size of a record, in bytes
+	 */
+	public static int getMaxSize(int width, int height)
+	{
+		return MAX_HEADER + Board.getEncodedSize(width * height);
+	}
+	
+	/**
+	 Writes a record of the game to the buffer, starting at its position. The position is advanced past the record.
+	 
+	 @param minesweeper the game to write
+	 @param buffer      the buffer to write to
+	 
+	 @throws java.nio.BufferOverflowException if the buffer does not have enough room for the record
+	 */
+	public static void write(Minesweeper minesweeper, ByteBuffer buffer)
+	{
+		int max = getMaxSize(minesweeper.getWidth(), minesweeper.getHeight());
+		int prefix = varintSize(max);
+		int start = buffer.position();
+		buffer.position(start + prefix);
+		buffer.put((byte) VERSION);
+		minesweeper.write(buffer);
+		int length = buffer.position() - start - prefix;
+		// the length is padded to the reserved amount of bytes with continuation bits
+		for (int k = 0; k < prefix; k++, length >>>= 7)
+			buffer.put(start + k, (byte) (k < prefix - 1 ? length & 0x7F | 0x80 : length & 0x7F));
+	}
+	
+	/**
+	 Reads a record from the buffer, starting at its position, and restores the game from it. The position is advanced
+	 past the record.
+	 <p>
+	 The game fires a <code>DIFFICULTY_CHANGE_EVENT</code> if the dimensions of the board changed, and a
+	 <code>NEW_GAME_EVENT</code>. Large board mode is enabled if the board requires it.
+	 </p>
+	 
+	 @param minesweeper the game to restore
+	 @param buffer      the buffer to read from
+	 
+	 @throws IllegalArgumentException if the record has an unsupported version or invalid dimensions
+	 @throws BufferUnderflowException if the buffer does not hold the whole record
+	 */
+	public static void read(Minesweeper minesweeper, ByteBuffer buffer)
+	{
+		int length = (int) getVarint(buffer);
+		if (buffer.remaining() < length)
+			throw new BufferUnderflowException();
+		int end = buffer.position() + length;
+		int version = buffer.get();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported format version: " + version);
+		minesweeper.read(buffer);
+		buffer.position(end);
+	}
+	
+	/**
+	 Writes a record of the game to the channel at its position, using the buffer as scratch space.
+	 
+	 @param minesweeper the game to write
+	 @param channel     the channel to write to
+	 @param buffer      a buffer with enough room for the record
+	 
+	 @throws IOException if an I/O error occurs
+	 */
+	public static void write(Minesweeper minesweeper, FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.clear();
+		write(minesweeper, buffer);
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+	
+	/**
+	 Reads a record from the channel at its position, and restores the game from it, using the buffer as scratch
+	 space. The position of the channel is advanced past the record.
+	 
+	 @param minesweeper the game to restore
+	 @param channel     the channel to read from
+	 @param buffer      a buffer with enough room for the record
+	 
+	 @return <code>false</code> if the channel is at its end, and no record was read
+	 
+	 @throws IOException if an I/O error occurs, or the channel ends within a record
+	 */
+	public static boolean read(Minesweeper minesweeper, FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		long position = channel.position();
+		buffer.clear();
+		while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+			;
+		buffer.flip();
+		if (!buffer.hasRemaining())
+			return false;
+		try
+		{
+			read(minesweeper, buffer);
+		} catch (BufferUnderflowException e)
+		{
+			throw new IOException("Truncated record at position " + position, e);
+		}
+		channel.position(position + buffer.position());
+		return true;
+	}
+	
+	static int varintSize(long value)
+	{
+		int n = 1;
+		while ((value >>>= 7) != 0)
+			n++;
+		return n;
+	}
+	
+	static void putVarint(ByteBuffer buffer, long value)
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	static long getVarint(ByteBuffer buffer)
+	{
+		long value = 0;
+		for (int shift = 0; ; shift += 7)
+		{
+			byte b = buffer.get();
+			value |= (b & 0x7FL) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+	
+	static long zigzag(long value)
+	{
+		return value << 1 ^ value >> 63;
+	}
+	
+	static long unzigzag(long value)
+	{
+		return value >>> 1 ^ -(value & 1);
+	}
+	
+	static void putFixed64(ByteBuffer buffer, long value)
+	{
+		for (int shift = 56; shift >= 0; shift -= 8)
+			buffer.put((byte) (value >>> shift));
+	}
+	
+	static long getFixed64(ByteBuffer buffer)
+	{
+		long value = 0;
+		for (int k = 0; k < 8; k++)
+			value = value << 8 | buffer.get() & 0xFFL;
+		return value;
+	}
+}
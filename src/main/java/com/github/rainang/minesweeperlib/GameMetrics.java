@@ -0,0 +1,230 @@
+package com.github.rainang.minesweeperlib;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ Metrics of the actions performed on a game, recorded while attached to a <code>Minesweeper</code> object with the
+ <code>setMetrics</code> method.
+ <p>
+ The time taken by <code>open</code>, <code>chord</code>, <code>flag</code>, <code>newGame</code>, and
+ <code>setDifficulty</code> is recorded in nanoseconds, along with the amount of tiles opened by every open or chord
+ action that opened tiles, the amount of positions rejected while relocating mines from the first click area of a
+ legacy game, and the time taken to invoke the listeners of every event, for each event type. Values are recorded in
+ <code>Histogram</code> objects, without allocating. A game without metrics only checks for their absence.
+ </p>
+ <p>
+ Metrics are not thread-safe. They may be shared by the games of one thread, and the metrics of several threads may be
+ combined with the <code>add</code> method. The getters return copies, and may be invoked from any thread, including
+ through JMX, but a copy taken while values are being recorded may be slightly inconsistent.
+ </p>
+ */
+public final class GameMetrics implements GameMetricsMXBean
+{
+	private final Histogram open = new Histogram();
+	
+	private final Histogram chord = new Histogram();
+	
+	private final Histogram flag = new Histogram();
+	
+	private final Histogram newGame = new Histogram();
+	
+	private final Histogram setDifficulty = new Histogram();
+	
+	private final Histogram cascade = new Histogram();
+	
+	private final Histogram relocation = new Histogram();
+	
+	private final Histogram[] dispatch = new Histogram[GameEvent.values().length];
+	
+	/**
+	 Constructs empty metrics.
+	 */
+	public GameMetrics()
+	{
+		for (int k = 0; k < dispatch.length; k++)
+			dispatch[k] = new Histogram();
+	}
+	
+	void recordAction(boolean chord, long nanos, int opened)
+	{
+		(chord ? this.chord : open).record(nanos);
+		if (opened != 0)
+			cascade.record(Math.abs(opened));
+	}
+	
+	void recordFlag(long nanos)
+	{
+		flag.record(nanos);
+	}
+	
+	void recordNewGame(long nanos)
+	{
+		newGame.record(nanos);
+	}
+	
+	void recordSetDifficulty(long nanos)
+	{
+		setDifficulty.record(nanos);
+	}
+	
+	void recordRelocation(int retries)
+	{
+		relocation.record(retries);
+	}
+	
+	void recordDispatch(GameEvent event, long nanos)
+	{
+		dispatch[event.ordinal()].record(nanos);
+	}
+	
+	/**
+	 Adds every value recorded by other metrics to these.
+	 
+	 @param other the metrics to add
+	 */
+	public void add(GameMetrics other)
+	{
+		open.add(other.open);
+		chord.add(other.chord);
+		flag.add(other.flag);
+		newGame.add(other.newGame);
+		setDifficulty.add(other.setDifficulty);
+		cascade.add(other.cascade);
+		relocation.add(other.relocation);
+		for (int k = 0; k < dispatch.length; k++)
+			dispatch[k].add(other.dispatch[k]);
+	}
+	
+	/**
+	 Removes every value recorded.
+	 */
+	public void reset()
+	{
+		open.reset();
+		chord.reset();
+		flag.reset();
+		newGame.reset();
+		setDifficulty.reset();
+		cascade.reset();
+		relocation.reset();
+		for (Histogram h : dispatch)
+			h.reset();
+	}
+	
+	/**
+	 Registers these metrics with the platform MBean server, under the domain of this package, as the type
+	 <code>GameMetrics</code> with the specified name. The MBean is unregistered through the server.
+	 
+	 @param name the name of the MBean
+	 
+	 @return the object name the metrics are registered under
+	 
+	 @throws JMException if the metrics cannot be registered, or an MBean with the name is registered
+	 */
+	public ObjectName registerMBean(String name) throws JMException
+	{
+		ObjectName objectName = new ObjectName(GameMetrics.class.getPackage()
+																.getName() + ":type=GameMetrics,name=" +
+											   ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer()
+						 .registerMBean(this, objectName);
+		return objectName;
+	}
+	
+	/**
+	 Returns the time taken by open actions, in nanoseconds.
+	 
+	 @return a copy of the histogram of open actions
+	 */
+	@Override
+	public Histogram getOpenLatency()
+	{
+		return open.copy();
+	}
+	
+	/**
+	 Returns the time taken by chord actions, in nanoseconds.
+	 
+	 @return a copy of the histogram of chord actions
+	 */
+	@Override
+	public Histogram getChordLatency()
+	{
+		return chord.copy();
+	}
+	
+	/**
+	 Returns the time taken by flag actions, in nanoseconds.
+	 
+	 @return a copy of the histogram of flag actions
+	 */
+	@Override
+	public Histogram getFlagLatency()
+	{
+		return flag.copy();
+	}
+	
+	/**
+	 Returns the time taken by new games, in nanoseconds.
+	 
+	 @return a copy of the histogram of new games
+	 */
+	@Override
+	public Histogram getNewGameLatency()
+	{
+		return newGame.copy();
+	}
+	
+	/**
+	 Returns the time taken by difficulty changes, in nanoseconds, including the new game each of them starts.
+	 
+	 @return a copy of the histogram of difficulty changes
+	 */
+	@Override
+	public Histogram getSetDifficultyLatency()
+	{
+		return setDifficulty.copy();
+	}
+	
+	/**
+	 Returns the amount of tiles opened by open and chord actions that opened tiles.
+	 
+	 @return a copy of the histogram of tiles opened
+	 */
+	@Override
+	public Histogram getCascadeSizes()
+	{
+		return cascade.copy();
+	}
+	
+	/**
+	 Returns the amount of positions rejected while relocating the mines of the first click area of a legacy game, for
+	 every first click that relocated mines.
+	 
+	 @return a copy of the histogram of rejected positions
+	 */
+	@Override
+	public Histogram getRelocationRetries()
+	{
+		return relocation.copy();
+	}
+	
+	/**
+	 Returns the time taken to invoke the listeners of an event, in nanoseconds, for every event type. Events fired
+	 while a game has no listeners are not recorded.
+	 
+	 @return copies of the histograms of every event type
+	 */
+	@Override
+	public Map<GameEvent, Histogram> getDispatchTimes()
+	{
+		Map<GameEvent, Histogram> times = new EnumMap<>(GameEvent.class);
+		for (GameEvent event : GameEvent.values())
+			times.put(event, dispatch[event.ordinal()].copy());
+		return times;
+	}
+}
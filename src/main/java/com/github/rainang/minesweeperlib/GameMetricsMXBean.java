@@ -0,0 +1,29 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Map;
+
+/**
+ The management interface of <code>GameMetrics</code>. Every histogram is exposed as composite data holding its count,
+ mean, minimum, maximum, median, and 99th percentile. Histograms cannot be reconstructed from composite data, so
+ the interface is meant for JMX clients such as JConsole, and not for MXBean proxies.
+ 
+ @see GameMetrics#registerMBean(String)
+ */
+public interface GameMetricsMXBean
+{
+	Histogram getOpenLatency();
+	
+	Histogram getChordLatency();
+	
+	Histogram getFlagLatency();
+	
+	Histogram getNewGameLatency();
+	
+	Histogram getSetDifficultyLatency();
+	
+	Histogram getCascadeSizes();
+	
+	Histogram getRelocationRetries();
+	
+	Map<GameEvent, Histogram> getDispatchTimes();
+}
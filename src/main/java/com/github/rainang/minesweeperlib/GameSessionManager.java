@@ -0,0 +1,484 @@
+package com.github.rainang.minesweeperlib;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ Hosts many <code>Minesweeper</code> games, keyed by session id, on a shared executor.
+ <p>
+ Commands are queued per session, and the queue of a session is drained by one task at a time, so every game has a
+ single writer without a thread of its own. By default, commands run on virtual threads when the platform provides
+ them, and on a fixed pool of daemon threads with one thread per processor otherwise.
+ </p>
+ <p>
+ A session that receives no command for longer than the idle timeout is evicted: its game is written in the format of
+ <code>GameFormat</code>, which takes under 200 bytes for an expert board, and released. The next command to the
+ session creates a game with the factory, and reads the state into it, which fires a <code>NEW_GAME_EVENT</code>.
+ Settings that are not part of the format, along with listeners and replay recorders, must therefore be applied by
+ the factory. Idle sessions are evicted in the background every half timeout.
+ </p>
+ <p>
+ The clock of a game in progress keeps running while its session is evicted, as it would for an idle player whose
+ game was never evicted, so the final time of a game does not depend on eviction. A replay being recorded when the
+ session is evicted is kept along with the state, and recording resumes on the recorder the factory attaches to the
+ loaded game.
+ </p>
+ <p>
+ The latency of every command, from submission to completion, is recorded in a histogram of its session and in a
+ histogram of all sessions. The histogram of all sessions is split into stripes, each shared by a fraction of the
+ sessions and guarded by a lock of its own, and merged when it is read, so sessions seldom wait for each other.
+ </p>
+ */
+public final class GameSessionManager implements AutoCloseable
+{
+	private static final int DRAIN_LIMIT = 64;
+	
+	private final Function<String, Minesweeper> factory;
+	
+	private final long idleNanos;
+	
+	private final Executor executor;
+	
+	private final boolean ownsExecutor;
+	
+	private final ScheduledExecutorService evictor;
+	
+	private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+	
+	private final LatencyHistogram[] latency;
+	
+	private final AtomicInteger nextStripe = new AtomicInteger();
+	
+	private final AtomicInteger live = new AtomicInteger();
+	
+	/**
+	 Constructs a manager with the default executor.
+	 
+	 @param factory     the factory creating the game of a session, given its id
+	 @param idleTimeout the time after which an idle session is evicted, in milliseconds, or 0 to never evict
+	 */
+	public GameSessionManager(Function<String, Minesweeper> factory, long idleTimeout)
+	{
+		this(factory, idleTimeout, defaultExecutor(), true);
+	}
+	
+	/**
+	 Constructs a manager running commands on the specified executor. The executor is not shut down by the manager.
+	 
+	 @param factory     the factory creating the game of a session, given its id
+	 @param idleTimeout the time after which an idle session is evicted, in milliseconds, or 0 to never evict
+	 @param executor    the executor to run commands on
+	 */
+	public GameSessionManager(Function<String, Minesweeper> factory, long idleTimeout, Executor executor)
+	{
+		this(factory, idleTimeout, executor, false);
+	}
+	
+	private GameSessionManager(Function<String, Minesweeper> factory, long idleTimeout, Executor executor,
+							   boolean ownsExecutor)
+	{
+		this.factory = factory;
+		this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		// a few stripes per processor, so sessions recording at the same time rarely share a stripe
+		int stripes = Integer.highestOneBit(Runtime.getRuntime()
+												   .availableProcessors() * 4 - 1) << 1;
+		this.latency = new LatencyHistogram[stripes];
+		for (int k = 0; k < stripes; k++)
+			latency[k] = new LatencyHistogram();
+		if (idleTimeout > 0)
+		{
+			evictor = Executors.newSingleThreadScheduledExecutor(r ->
+			{
+				Thread t = new Thread(r, "minesweeper-session-evictor");
+				t.setDaemon(true);
+				return t;
+			});
+			long period = Math.max(1, idleTimeout / 2);
+			evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+		} else
+			evictor = null;
+	}
+	
+	/**
+	 Returns an executor starting a virtual thread for every task if the platform supports virtual threads, and a fixed
+	 pool of daemon threads otherwise.
+	 */
+	private static ExecutorService defaultExecutor()
+	{
+		try
+		{
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (ReflectiveOperationException e)
+		{
+			AtomicInteger n = new AtomicInteger();
+			return Executors.newFixedThreadPool(Runtime.getRuntime()
+													   .availableProcessors(), r ->
+			{
+				Thread t = new Thread(r, "minesweeper-session-" + n.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+	
+	/**
+	 Creates a session with a new game.
+	 
+	 @param id the id of the session
+	 
+	 @return <code>true</code> if the session was created, <code>false</code> if a session with the id exists
+	 */
+	public boolean createSession(String id)
+	{
+		Session session = new Session();
+		if (sessions.putIfAbsent(id, session) != null)
+			return false;
+		session.execute(id, null);
+		return true;
+	}
+	
+	/**
+	 Removes a session. Commands already queued for the session are still run. Commands queued after the removal, by
+	 callers that looked up the session before it was removed, complete exceptionally.
+	 
+	 @param id the id of the session
+	 
+	 @return <code>true</code> if the session was removed
+	 */
+	public boolean removeSession(String id)
+	{
+		Session session = sessions.remove(id);
+		if (session == null)
+			return false;
+		session.execute(id, s ->
+		{
+			if (s.game != null)
+				live.decrementAndGet();
+			s.game = null;
+			s.state = null;
+			s.replay = null;
+			s.removed = true;
+			return null;
+		}, false);
+		return true;
+	}
+	
+	/**
+	 Runs a command on the game of a session, on the single writer of that session. The command must not keep a
+	 reference to the game, which may be evicted once the command returns.
+	 
+	 @param id      the id of the session
+	 @param command the command to run
+	 @param <T>     the type of the result of the command
+	 
+	 @return a future completed with the result of the command, or exceptionally if the session does not exist or the
+	 command throws an exception
+	 */
+	public <T> CompletableFuture<T> execute(String id, Function<? super Minesweeper, ? extends T> command)
+	{
+		Session session = sessions.get(id);
+		if (session == null)
+		{
+			CompletableFuture<T> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalArgumentException("No such session: " + id));
+			return future;
+		}
+		return session.execute(id, s -> command.apply(s.game));
+	}
+	
+	/**
+	 Performs an open action on the game of a session.
+	 
+	 @param id the id of the session
+	 @param x  the x-coordinate of the tile
+	 @param y  the y-coordinate of the tile
+	 
+	 @return a future completed with the amount of tiles opened, negated if a mine is revealed
+	 
+	 @see Minesweeper#open(int, int)
+	 */
+	public CompletableFuture<Integer> open(String id, int x, int y)
+	{
+		return execute(id, ms -> ms.open(x, y));
+	}
+	
+	/**
+	 Performs a chord action on the game of a session.
+	 
+	 @param id the id of the session
+	 @param x  the x-coordinate of the tile
+	 @param y  the y-coordinate of the tile
+	 
+	 @return a future completed with the amount of tiles opened, negated if a mine is revealed
+	 
+	 @see Minesweeper#chord(int, int)
+	 */
+	public CompletableFuture<Integer> chord(String id, int x, int y)
+	{
+		return execute(id, ms -> ms.chord(x, y));
+	}
+	
+	/**
+	 Performs a flag action on the game of a session.
+	 
+	 @param id the id of the session
+	 @param x  the x-coordinate of the tile
+	 @param y  the y-coordinate of the tile
+	 
+	 @return a future completed with <code>true</code> if the flag action was successful
+	 
+	 @see Minesweeper#flag(int, int)
+	 */
+	public CompletableFuture<Boolean> flag(String id, int x, int y)
+	{
+		return execute(id, ms -> ms.flag(x, y));
+	}
+	
+	/**
+	 Evicts every session that has been idle for longer than the idle timeout. This is invoked in the background, and
+	 only needs to be invoked directly to evict sessions at a specific time.
+	 
+	 @return the amount of sessions scheduled for eviction
+	 */
+	public int evictIdle()
+	{
+		if (idleNanos <= 0)
+			return 0;
+		long now = System.nanoTime();
+		int n = 0;
+		for (Map.Entry<String, Session> e : sessions.entrySet())
+		{
+			Session session = e.getValue();
+			if (session.game == null || now - session.lastAccess < idleNanos)
+				continue;
+			n++;
+			session.execute(e.getKey(), s ->
+			{
+				// the session may have received a command since it was found idle
+				if (s.game != null && System.nanoTime() - s.lastAccess >= idleNanos)
+					s.evict();
+				return null;
+			}, false);
+		}
+		return n;
+	}
+	
+	/**
+	 Returns a copy of the latency histogram of a session, taken on the single writer of the session.
+	 
+	 @param id the id of the session
+	 
+	 @return a future completed with the latency histogram of the session
+	 */
+	public CompletableFuture<LatencyHistogram> getLatency(String id)
+	{
+		Session session = sessions.get(id);
+		if (session == null)
+		{
+			CompletableFuture<LatencyHistogram> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalArgumentException("No such session: " + id));
+			return future;
+		}
+		return session.execute(id, s -> s.latency == null ? new LatencyHistogram() : s.latency.copy(), false);
+	}
+	
+	/**
+	 Returns a copy of the latency histogram of all sessions, merged from the stripes it is recorded in.
+	 
+	 @return the latency histogram of all sessions
+	 */
+	public LatencyHistogram getLatency()
+	{
+		LatencyHistogram copy = new LatencyHistogram();
+		for (LatencyHistogram stripe : latency)
+			synchronized (stripe)
+			{
+				copy.add(stripe);
+			}
+		return copy;
+	}
+	
+	/**
+	 Returns the stripe of the latency histogram of all sessions for a new session, assigning stripes in turn.
+	 */
+	private LatencyHistogram nextStripe()
+	{
+		return latency[nextStripe.getAndIncrement() & latency.length - 1];
+	}
+	
+	/**
+	 Returns the amount of sessions.
+	 
+	 @return the amount of sessions
+	 */
+	public int getSessionCount()
+	{
+		return sessions.size();
+	}
+	
+	/**
+	 Returns the amount of sessions with a game in memory, that is, the sessions that are not evicted.
+	 
+	 @return the amount of sessions with a game in memory
+	 */
+	public int getLiveSessionCount()
+	{
+		return live.get();
+	}
+	
+	/**
+	 Stops evicting sessions, and shuts down the default executor, if it is used. Commands already queued are still
+	 run.
+	 */
+	@Override
+	public void close()
+	{
+		if (evictor != null)
+			evictor.shutdownNow();
+		if (ownsExecutor)
+			((ExecutorService) executor).shutdown();
+	}
+	
+	/**
+	 A session, with its game or the evicted state of its game, and its queue of commands. The fields are only
+	 accessed by the task draining the queue, except for the game and the last access time, which are also read when
+	 looking for idle sessions. Once removed, a session is never loaded again.
+	 */
+	private final class Session implements Runnable
+	{
+		private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+		
+		private final AtomicInteger pending = new AtomicInteger();
+		
+		private final LatencyHistogram stripe = nextStripe();
+		
+		private volatile Minesweeper game;
+		
+		private volatile long lastAccess = System.nanoTime();
+		
+		private byte[] state;
+		
+		private long evictedAt;
+		
+		private Replay replay;
+		
+		private LatencyHistogram latency;
+		
+		private boolean removed;
+		
+		private <T> CompletableFuture<T> execute(String id, Function<Session, T> command)
+		{
+			return execute(id, command, true);
+		}
+		
+		/**
+		 Queues a command. A command that accesses the game loads it first, and counts as an access of the session. A
+		 command that runs after the session was removed completes exceptionally without running.
+		 */
+		private <T> CompletableFuture<T> execute(String id, Function<Session, T> command, boolean access)
+		{
+			CompletableFuture<T> future = new CompletableFuture<>();
+			long submitted = System.nanoTime();
+			if (access)
+				lastAccess = submitted;
+			commands.add(() ->
+			{
+				if (removed)
+				{
+					future.completeExceptionally(new IllegalArgumentException("No such session: " + id));
+					return;
+				}
+				try
+				{
+					if (access)
+						load(id);
+					future.complete(command == null ? null : command.apply(this));
+				} catch (RuntimeException | Error e)
+				{
+					future.completeExceptionally(e);
+				}
+				if (access)
+					record(System.nanoTime() - submitted);
+			});
+			if (pending.getAndIncrement() == 0)
+				executor.execute(this);
+			return future;
+		}
+		
+		/**
+		 Drains the queue, and submits itself again after a number of commands, so a busy session does not hold on to
+		 a thread of the executor.
+		 */
+		@Override
+		public void run()
+		{
+			for (int n = 0; n < DRAIN_LIMIT; n++)
+			{
+				commands.poll()
+						.run();
+				if (pending.decrementAndGet() == 0)
+					return;
+			}
+			executor.execute(this);
+		}
+		
+		private void load(String id)
+		{
+			if (game != null)
+				return;
+			Minesweeper ms = factory.apply(id);
+			if (state != null)
+			{
+				GameFormat.read(ms, ByteBuffer.wrap(state));
+				if (ms.getGameState() == GameState.PLAY)
+					ms.addTime(System.currentTimeMillis() - evictedAt);
+				ReplayRecorder recorder = ms.getReplayRecorder();
+				if (replay != null && recorder != null)
+					recorder.resume(ms, replay);
+			}
+			state = null;
+			replay = null;
+			game = ms;
+			live.incrementAndGet();
+		}
+		
+		private void evict()
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(GameFormat.getMaxSize(game.getWidth(), game.getHeight()));
+			GameFormat.write(game, buffer);
+			state = Arrays.copyOf(buffer.array(), buffer.position());
+			evictedAt = System.currentTimeMillis();
+			ReplayRecorder recorder = game.getReplayRecorder();
+			replay = recorder != null && recorder.getMinesweeper() == game ? recorder.getReplay() : null;
+			game = null;
+			live.decrementAndGet();
+		}
+		
+		private void record(long nanos)
+		{
+			if (latency == null)
+				latency = new LatencyHistogram();
+			latency.record(nanos);
+			synchronized (stripe)
+			{
+				stripe.record(nanos);
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Arrays;
+
+/**
+ A histogram of non-negative values, with buckets of logarithmic-linear width, in the style of HdrHistogram.
+ <p>
+ Values under 8 have a bucket each. Every following power of two is split into 8 buckets of equal width, so a value is
+ known to within 12.5%, over the whole range of <code>long</code>, at a fixed size of under 4 KB. Recording a value
+ takes a few instructions and does not allocate. A histogram is not thread-safe.
+ </p>
+ 
+ @see LatencyHistogram
+ */
+public final class Histogram
+{
+	private static final int SUB_BITS = 3;
+	
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+	
+	private final long[] counts = new long[BUCKETS];
+	
+	private long count;
+	
+	private long total;
+	
+	private long min = Long.MAX_VALUE;
+	
+	private long max;
+	
+	/**
+	 Records a value. A negative value is recorded as 0.
+	 
+	 @param value the value to record
+	 */
+	public void record(long value)
+	{
+		value = Math.max(0, value);
+		counts[index(value)]++;
+		count++;
+		total += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+	
+	private static int index(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int bit = 63 - Long.numberOfLeadingZeros(value);
+		return (bit - SUB_BITS + 1 << SUB_BITS) + (int) (value >>> bit - SUB_BITS & SUB_BUCKETS - 1);
+	}
+	
+	/**
+	 Returns the largest value of the specified bucket.
+	 */
+	private static long upperBound(int index)
+	{
+		if (index < SUB_BUCKETS)
+			return index;
+		int shift = (index >>> SUB_BITS) - 1;
+		// the end of the last bucket overflows to Long.MIN_VALUE, so its largest value is Long.MAX_VALUE
+		return ((long) (SUB_BUCKETS + (index & SUB_BUCKETS - 1) + 1) << shift) - 1;
+	}
+	
+	/**
+	 Adds every value recorded by another histogram to this one.
+	 
+	 @param other the histogram to add
+	 */
+	public void add(Histogram other)
+	{
+		for (int k = 0; k < BUCKETS; k++)
+			counts[k] += other.counts[k];
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+	
+	/**
+	 Returns a copy of this histogram.
+	 
+	 @return a copy of this histogram
+	 */
+	public Histogram copy()
+	{
+		Histogram copy = new Histogram();
+		copy.add(this);
+		return copy;
+	}
+	
+	/**
+	 Removes every value recorded.
+	 */
+	public void reset()
+	{
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+	
+	/**
+	 Returns the amount of values recorded.
+	 
+	 @return the amount of values recorded
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 Returns the mean of the values recorded, or 0 if no value was recorded.
+	 
+	 @return the mean of the values recorded
+	 */
+	public double getMean()
+	{
+		return count == 0 ? 0 : (double) total / count;
+	}
+	
+	/**
+	 Returns the smallest value recorded, or 0 if no value was recorded.
+	 
+	 @return the smallest value recorded
+	 */
+	public long getMin()
+	{
+		return count == 0 ? 0 : min;
+	}
+	
+	/**
+	 Returns the largest value recorded.
+	 
+	 @return the largest value recorded
+	 */
+	public long getMax()
+	{
+		return max;
+	}
+	
+	/**
+	 Returns an upper bound of the median of the values recorded.
+	 
+	 @return an upper bound of the median
+	 
+	 @see #getPercentile(double)
+	 */
+	public long getMedian()
+	{
+		return getPercentile(50);
+	}
+	
+	/**
+	 Returns an upper bound of the 99th percentile of the values recorded.
+	 
+	 @return an upper bound of the 99th percentile
+	 
+	 @see #getPercentile(double)
+	 */
+	public long get99thPercentile()
+	{
+		return getPercentile(99);
+	}
+	
+	/**
+	 Returns an upper bound of the specified percentile of the values recorded. This is the largest value of the bucket
+	 holding the percentile, and never more than the largest value recorded.
+	 
+	 @param percentile the percentile, from 0 to 100
+	 
+	 @return an upper bound of the percentile, or 0 if no value was recorded
+	 */
+	public long getPercentile(double percentile)
+	{
+		long rank = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100);
+		long seen = 0;
+		for (int k = 0; k < BUCKETS; k++)
+		{
+			seen += counts[k];
+			if (seen >= rank && seen > 0)
+				return Math.min(max, upperBound(k));
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,76 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Arrays;
+
+/**
+ A reusable, growable list of primitive <code>int</code> values. Clearing the list keeps its capacity, so a list that
+ is reused does not allocate once it has grown to the largest size required of it.
+ */
+final class IntList
+{
+	private int[] elements;
+	
+	private int size;
+	
+	/**
+	 Constructs an empty list with the specified initial capacity.
+	 
+	 @param capacity the initial capacity
+	 */
+	IntList(int capacity)
+	{
+		elements = new int[Math.max(1, capacity)];
+	}
+	
+	/**
+	 Appends a value to the end of this list.
+	 
+	 @param value the value to append
+	 */
+	void add(int value)
+	{
+		if (size == elements.length)
+			elements = Arrays.copyOf(elements, size << 1);
+		elements[size++] = value;
+	}
+	
+	/**
+	 Returns the value at the specified position. The result is undefined if the position is out of range.
+	 
+	 @param index the position of the value
+	 
+	 @return the value at the specified position
+	 */
+	int get(int index)
+	{
+		return elements[index];
+	}
+	
+	/**
+	 Returns the number of values in this list.
+	 
+	 @return the number of values in this list
+	 */
+	int size()
+	{
+		return size;
+	}
+	
+	/**
+	 Returns a new array containing the values of this list in order.
+	 
+	 @return a new array containing the values of this list
+	 */
+	int[] toArray()
+	{
+		return Arrays.copyOf(elements, size);
+	}
+	
+	/**
+	 Removes all values from this list but keeps its capacity.
+	 */
+	void clear()
+	{
+		size = 0;
+	}
+}
@@ -0,0 +1,79 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ A reusable first-in-first-out queue of primitive <code>int</code> values.
+ <p>
+ The queue is backed by a ring buffer whose capacity doubles when full and is never released, so a queue that is
+ cleared and reused does not allocate once it has grown to the largest size required of it.
+ </p>
+ */
+final class IntQueue
+{
+	private int[] elements;
+	
+	private int head;
+	
+	private int tail;
+	
+	/**
+	 Constructs an empty queue with the specified initial capacity. The capacity is rounded up to a power of two.
+	 
+	 @param capacity the initial capacity
+	 */
+	IntQueue(int capacity)
+	{
+		elements = new int[Integer.highestOneBit(Math.max(2, capacity) - 1) << 1];
+	}
+	
+	/**
+	 Inserts a value at the tail of this queue.
+	 
+	 @param value the value to insert
+	 */
+	void offer(int value)
+	{
+		if (tail - head == elements.length)
+			grow();
+		elements[tail++ & elements.length - 1] = value;
+	}
+	
+	/**
+	 Removes the value at the head of this queue. The result is undefined if this queue is empty.
+	 
+	 @return the value at the head of this queue
+	 */
+	int poll()
+	{
+		return elements[head++ & elements.length - 1];
+	}
+	
+	/**
+	 Returns <code>true</code> if this queue is empty.
+	 
+	 @return <code>true</code> if this queue is empty
+	 */
+	boolean isEmpty()
+	{
+		return head == tail;
+	}
+	
+	/**
+	 Removes all values from this queue but keeps its capacity.
+	 */
+	void clear()
+	{
+		head = 0;
+		tail = 0;
+	}
+	
+	private void grow()
+	{
+		int[] a = new int[elements.length << 1];
+		int h = head & elements.length - 1;
+		System.arraycopy(elements, h, a, 0, elements.length - h);
+		System.arraycopy(elements, 0, a, elements.length - h, h);
+		tail -= head;
+		head = 0;
+		elements = a;
+	}
+}
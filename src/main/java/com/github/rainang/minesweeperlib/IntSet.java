@@ -0,0 +1,95 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ A set of cell indices supporting constant time insertion, removal, and membership tests, and iteration in time
+ proportional to its size. Members are kept densely packed, with each cell mapped to its position.
+ */
+final class IntSet
+{
+	private final int[] dense;
+	
+	private final int[] position;
+	
+	private int size;
+	
+	/**
+	 Constructs an empty set of indices less than <code>capacity</code>.
+	 
+	 @param capacity the amount of cells
+	 */
+	IntSet(int capacity)
+	{
+		dense = new int[capacity];
+		position = new int[capacity];
+	}
+	
+	/**
+	 Adds a cell to this set.
+	 
+	 @param i the index of the cell
+	 */
+	void add(int i)
+	{
+		if (contains(i))
+			return;
+		dense[size] = i;
+		position[i] = size++;
+	}
+	
+	/**
+	 Removes a cell from this set.
+	 
+	 @param i the index of the cell
+	 */
+	void remove(int i)
+	{
+		if (!contains(i))
+			return;
+		int last = dense[--size];
+		dense[position[i]] = last;
+		position[last] = position[i];
+	}
+	
+	/**
+	 Returns <code>true</code> if this set contains the specified cell.
+	 
+	 @param i the index of the cell
+	 
+	 @return <code>true</code> if this set contains the specified cell
+	 */
+	boolean contains(int i)
+	{
+		int p = position[i];
+		return p < size && dense[p] == i;
+	}
+	
+	/**
+	 Returns the member at the specified position, between zero and the size of this set.
+	 
+	 @param index the position of the member
+	 
+	 @return the member at the specified position
+	 */
+	int get(int index)
+	{
+		return dense[index];
+	}
+	
+	/**
+	 Returns the number of cells in this set.
+	 
+	 @return the number of cells in this set
+	 */
+	int size()
+	{
+		return size;
+	}
+	
+	/**
+	 Removes all cells from this set.
+	 */
+	void clear()
+	{
+		size = 0;
+	}
+}
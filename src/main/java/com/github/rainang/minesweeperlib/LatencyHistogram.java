@@ -0,0 +1,114 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ A histogram of latencies, with buckets of exponentially growing width.
+ <p>
+ The first bucket holds latencies under one microsecond, and every following bucket holds latencies up to twice as long
+ as the bucket before it, so a percentile is accurate to within a factor of two, at a fixed size of a few hundred
+ bytes. A histogram is not thread-safe.
+ </p>
+ */
+public final class LatencyHistogram
+{
+	private static final int BUCKETS = 40;
+	
+	private final long[] counts = new long[BUCKETS];
+	
+	private long count;
+	
+	private long total;
+	
+	private long max;
+	
+	/**
+	 Records a latency.
+	 
+	 @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos)
+	{
+		nanos = Math.max(0, nanos);
+		int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos / 1000));
+		counts[bucket]++;
+		count++;
+		total += nanos;
+		max = Math.max(max, nanos);
+	}
+	
+	/**
+	 Adds every latency recorded by another histogram to this one.
+	 
+	 @param other the histogram to add
+	 */
+	public void add(LatencyHistogram other)
+	{
+		for (int k = 0; k < BUCKETS; k++)
+			counts[k] += other.counts[k];
+		count += other.count;
+		total += other.total;
+		max = Math.max(max, other.max);
+	}
+	
+	/**
+	 Returns a copy of this histogram.
+	 
+	 @return a copy of this histogram
+	 */
+	public LatencyHistogram copy()
+	{
+		LatencyHistogram copy = new LatencyHistogram();
+		copy.add(this);
+		return copy;
+	}
+	
+	/**
+	 Returns the amount of latencies recorded.
+	 
+	 @return the amount of latencies recorded
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 Returns the mean latency in nanoseconds, or 0 if no latency was recorded.
+	 
+	 @return the mean latency in nanoseconds
+	 */
+	public double getMean()
+	{
+		return count == 0 ? 0 : (double) total / count;
+	}
+	
+	/**
+	 Returns the longest latency recorded in nanoseconds.
+	 
+	 @return the longest latency in nanoseconds
+	 */
+	public long getMax()
+	{
+		return max;
+	}
+	
+	/**
+	 Returns an upper bound of the specified percentile of the latencies recorded. This is the upper bound of the bucket
+	 holding the percentile, and never more than the longest latency recorded.
+	 
+	 @param percentile the percentile, from 0 to 100
+	 
+	 @return an upper bound of the percentile in nanoseconds, or 0 if no latency was recorded
+	 */
+	public long getPercentile(double percentile)
+	{
+		long rank = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100);
+		long seen = 0;
+		for (int k = 0; k < BUCKETS; k++)
+		{
+			seen += counts[k];
+			if (seen >= rank && seen > 0)
+				return Math.min(max, k == BUCKETS - 1 ? max : 1000L << k);
+		}
+		return 0;
+	}
+}
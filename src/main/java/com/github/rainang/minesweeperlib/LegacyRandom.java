@@ -0,0 +1,29 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Random;
+
+/**
+ A <code>MineRandom</code> backed by <code>java.util.Random</code>.
+ */
+final class LegacyRandom implements MineRandom
+{
+	private final Random rng = new Random();
+	
+	@Override
+	public void setSeed(long seed)
+	{
+		rng.setSeed(seed);
+	}
+	
+	@Override
+	public int nextInt(int bound)
+	{
+		return rng.nextInt(bound);
+	}
+	
+	@Override
+	public long nextLong()
+	{
+		return rng.nextLong();
+	}
+}
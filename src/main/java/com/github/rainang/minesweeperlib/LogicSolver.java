@@ -0,0 +1,440 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.Arrays;
+
+/**
+ A deterministic logic solver for a board.
+ <p>
+ The solver only reads the mine counts of cells it knows to be open. It deduces safe cells and mines with, in order of
+ cost, single-point rules on each open number, pairwise subset rules on overlapping numbers, and the global mine
+ count. Deduction is incremental: whenever a cell changes, only the numbers around it are queued to be checked again,
+ so the work done after an action is proportional to the part of the frontier it touched.
+ </p>
+ <p>
+ The solver runs in one of two modes. In simulation mode, used to test whether a board can be cleared without
+ guessing, safe cells are opened as soon as they are found. In live mode, used on a game in progress, safe cells are
+ only marked, and cells are opened as the game reports them.
+ </p>
+ */
+final class LogicSolver
+{
+	private static final byte UNKNOWN = 0;
+	
+	private static final byte OPEN = 1;
+	
+	private static final byte MINE = 2;
+	
+	private static final byte SAFE = 3;
+	
+	private final Board board;
+	
+	private final byte[] state;
+	
+	private final byte[] number;
+	
+	private final long[] queuedSingle;
+	
+	private final long[] queuedPair;
+	
+	private final IntQueue single = new IntQueue(64);
+	
+	private final IntQueue pair = new IntQueue(64);
+	
+	private final IntQueue cascade = new IntQueue(64);
+	
+	private final int[] unknownA = new int[8];
+	
+	private final int[] unknownB = new int[8];
+	
+	private boolean simulate;
+	
+	private IntSet safeCells;
+	
+	private IntSet mineCells;
+	
+	private int opened;
+	
+	private int safe;
+	
+	private int flagged;
+	
+	/**
+	 Constructs a solver for the specified board.
+	 
+	 @param board the board to solve
+	 */
+	LogicSolver(Board board)
+	{
+		this.board = board;
+		this.state = new byte[board.getSize()];
+		this.number = new byte[board.getSize()];
+		this.queuedSingle = new long[(board.getSize() + 63) >>> 6];
+		this.queuedPair = new long[queuedSingle.length];
+	}
+	
+	/**
+	 Returns the board this solver was constructed for.
+	 
+	 @return the board this solver was constructed for
+	 */
+	Board getBoard()
+	{
+		return board;
+	}
+	
+	/**
+	 Attempts to clear the board from the specified first click using logic alone, in simulation mode. The board itself
+	 is not modified.
+	 
+	 @param start the index of the first click
+	 @param mines the amount of mines on the board
+	 
+	 @return <code>true</code> if every cell without a mine could be opened without guessing
+	 */
+	boolean solve(int start, int mines)
+	{
+		simulate = true;
+		reset();
+		if (board.isMine(start))
+			return false;
+		open(start);
+		return deduce(mines);
+	}
+	
+	/**
+	 Forgets everything known about the board.
+	 */
+	void reset()
+	{
+		Arrays.fill(state, UNKNOWN);
+		Arrays.fill(queuedSingle, 0);
+		Arrays.fill(queuedPair, 0);
+		single.clear();
+		pair.clear();
+		opened = 0;
+		safe = 0;
+		flagged = 0;
+		if (safeCells != null)
+		{
+			safeCells.clear();
+			mineCells.clear();
+		}
+	}
+	
+	/**
+	 Switches to live mode, in which deduced safe cells are marked rather than opened. This does not reset the solver.
+	 */
+	void setLive()
+	{
+		simulate = false;
+		if (safeCells == null)
+		{
+			safeCells = new IntSet(state.length);
+			mineCells = new IntSet(state.length);
+		}
+	}
+	
+	/**
+	 Records that a cell has been opened on the board, and queues the numbers around it.
+	 
+	 @param i the index of the opened cell
+	 */
+	void reveal(int i)
+	{
+		if (state[i] == OPEN || state[i] == MINE)
+			return;
+		if (state[i] == SAFE)
+		{
+			safe--;
+			safeCells.remove(i);
+		}
+		state[i] = OPEN;
+		number[i] = (byte) board.getMineCount(i);
+		opened++;
+		markDirty(i);
+	}
+	
+	/**
+	 Applies the rules to every queued number until nothing more can be deduced.
+	 
+	 @param mines the amount of mines on the board
+	 
+	 @return <code>true</code> if every cell without a mine is open or known to be safe
+	 */
+	boolean deduce(int mines)
+	{
+		int goal = state.length - mines;
+		while (opened + safe < goal)
+		{
+			if (!single.isEmpty())
+				checkSingle(single.poll());
+			else if (!pair.isEmpty())
+				checkPairs(pair.poll());
+			else if (!checkGlobal(mines))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 Returns the cells known to be safe but not yet open. Only maintained in live mode.
+	 
+	 @return the cells known to be safe
+	 */
+	IntSet getSafeCells()
+	{
+		return safeCells;
+	}
+	
+	/**
+	 Returns the cells known to contain a mine. Only maintained in live mode.
+	 
+	 @return the cells known to contain a mine
+	 */
+	IntSet getMineCells()
+	{
+		return mineCells;
+	}
+	
+	/**
+	 Applies the single-point rules to an open number: if all of its mines are found, its other unknown neighbors are
+	 safe, and if its unknown neighbors are exactly its missing mines, they are all mines.
+	 */
+	private void checkSingle(int i)
+	{
+		queuedSingle[i >>> 6] &= ~(1L << i);
+		int unknown = unknownNeighbors(i, unknownA);
+		if (unknown == 0)
+			return;
+		int need = number[i] - mineNeighbors(i);
+		if (need == 0)
+			for (int k = 0; k < unknown; k++)
+				markSafe(unknownA[k]);
+		else if (need == unknown)
+			for (int k = 0; k < unknown; k++)
+				markMine(unknownA[k]);
+	}
+	
+	/**
+	 Applies the subset rules to an open number and every open number that shares unknown neighbors with it. The mines
+	 shared by two numbers are bounded by both, which may force the cells only one of them borders to be all safe or
+	 all mines. If a cell is deduced, the number is queued again so its remaining pairs are checked later.
+	 */
+	private void checkPairs(int a)
+	{
+		queuedPair[a >>> 6] &= ~(1L << a);
+		int ua = unknownNeighbors(a, unknownA);
+		if (ua == 0)
+			return;
+		int needA = number[a] - mineNeighbors(a);
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int x = board.getX(a);
+		int y = board.getY(a);
+		for (int ny = Math.max(0, y - 2); ny <= Math.min(height - 1, y + 2); ny++)
+			for (int nx = Math.max(0, x - 2); nx <= Math.min(width - 1, x + 2); nx++)
+			{
+				int b = ny * width + nx;
+				if (b == a || state[b] != OPEN || number[b] == 0)
+					continue;
+				int ub = unknownNeighbors(b, unknownB);
+				if (ub != 0 && checkPair(ua, needA, ub, number[b] - mineNeighbors(b)))
+				{
+					queue(a);
+					return;
+				}
+			}
+	}
+	
+	private boolean checkPair(int ua, int needA, int ub, int needB)
+	{
+		int both = 0;
+		for (int i = 0; i < ua; i++)
+			for (int j = 0; j < ub; j++)
+				if (unknownA[i] == unknownB[j])
+					both++;
+		if (both == 0)
+			return false;
+		int onlyA = ua - both;
+		int onlyB = ub - both;
+		int min = Math.max(0, Math.max(needA - onlyA, needB - onlyB));
+		int max = Math.min(both, Math.min(needA, needB));
+		
+		boolean found = false;
+		if (onlyA > 0 && (needA - min == 0 || needA - max == onlyA))
+		{
+			resolveOnly(unknownA, ua, unknownB, ub, needA - min == 0);
+			found = true;
+		}
+		if (onlyB > 0 && (needB - min == 0 || needB - max == onlyB))
+		{
+			resolveOnly(unknownB, ub, unknownA, ua, needB - min == 0);
+			found = true;
+		}
+		return found;
+	}
+	
+	private void resolveOnly(int[] cells, int n, int[] other, int m, boolean safe)
+	{
+		outer:
+		for (int i = 0; i < n; i++)
+		{
+			for (int j = 0; j < m; j++)
+				if (cells[i] == other[j])
+					continue outer;
+			if (safe)
+				markSafe(cells[i]);
+			else
+				markMine(cells[i]);
+		}
+	}
+	
+	/**
+	 Applies the global mine count: if every mine is found, all unknown cells are safe, and if the unknown cells are
+	 exactly the mines left, they are all mines.
+	 
+	 @return <code>true</code> if any cell was deduced
+	 */
+	private boolean checkGlobal(int mines)
+	{
+		int unknown = state.length - opened - safe - flagged;
+		int left = mines - flagged;
+		if (unknown == 0 || left != 0 && left != unknown)
+			return false;
+		for (int i = 0; i < state.length; i++)
+			if (left == 0)
+				markSafe(i);
+			else
+				markMine(i);
+		return true;
+	}
+	
+	private void markSafe(int i)
+	{
+		if (state[i] != UNKNOWN)
+			return;
+		if (simulate)
+		{
+			open(i);
+			return;
+		}
+		state[i] = SAFE;
+		safe++;
+		safeCells.add(i);
+		markDirty(i);
+	}
+	
+	private void markMine(int i)
+	{
+		if (state[i] != UNKNOWN)
+			return;
+		state[i] = MINE;
+		flagged++;
+		if (!simulate)
+			mineCells.add(i);
+		markDirty(i);
+	}
+	
+	/**
+	 Opens a cell deduced to be safe in simulation mode, and every cell a cascade from it would open.
+	 */
+	private void open(int i)
+	{
+		int width = board.getWidth();
+		int height = board.getHeight();
+		cascade.clear();
+		cascade.offer(i);
+		state[i] = OPEN;
+		number[i] = (byte) board.getMineCount(i);
+		while (!cascade.isEmpty())
+		{
+			int c = cascade.poll();
+			opened++;
+			markDirty(c);
+			if (number[c] != 0)
+				continue;
+			int x = board.getX(c);
+			int y = board.getY(c);
+			for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+				for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+				{
+					int j = ny * width + nx;
+					if (state[j] == UNKNOWN)
+					{
+						state[j] = OPEN;
+						number[j] = (byte) board.getMineCount(j);
+						cascade.offer(j);
+					}
+				}
+		}
+	}
+	
+	/**
+	 Queues the specified cell, if it is an open number, and every open number around it. In live mode an open zero is
+	 queued as well, since a cascade from it skips flagged cells, which are left closed but safe. In simulation mode a
+	 cascade opens every neighbor of a zero, so there is nothing to deduce from it.
+	 */
+	private void markDirty(int i)
+	{
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int x = board.getX(i);
+		int y = board.getY(i);
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+			{
+				int j = ny * width + nx;
+				if (state[j] == OPEN && (number[j] != 0 || !simulate))
+					queue(j);
+			}
+	}
+	
+	/**
+	 Queues an open cell for the single-point rules, and, if it is not a zero, for the subset rules. The single-point
+	 rules already resolve every unknown neighbor of a zero.
+	 */
+	private void queue(int i)
+	{
+		if ((queuedSingle[i >>> 6] & 1L << i) == 0)
+		{
+			queuedSingle[i >>> 6] |= 1L << i;
+			single.offer(i);
+		}
+		if (number[i] != 0 && (queuedPair[i >>> 6] & 1L << i) == 0)
+		{
+			queuedPair[i >>> 6] |= 1L << i;
+			pair.offer(i);
+		}
+	}
+	
+	private int unknownNeighbors(int i, int[] out)
+	{
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int x = board.getX(i);
+		int y = board.getY(i);
+		int n = 0;
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+			{
+				int j = ny * width + nx;
+				if (state[j] == UNKNOWN)
+					out[n++] = j;
+			}
+		return n;
+	}
+	
+	private int mineNeighbors(int i)
+	{
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int x = board.getX(i);
+		int y = board.getY(i);
+		int n = 0;
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+				if (state[ny * width + nx] == MINE)
+					n++;
+		return n;
+	}
+}
@@ -0,0 +1,32 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ The versions of the mapping from a seed to a mine layout. A seed always produces the same layout for the same board
+ dimensions, mine count, and layout version, so games may be reproduced from their seed by selecting the version they
+ were generated with.
+ 
+ @see Minesweeper#setMineLayout(MineLayout)
+ */
+public enum MineLayout
+{
+	/**
+	 The layout of version 0.8 and earlier. Mines are placed by drawing <code>nextInt(width)</code> and
+	 <code>nextInt(height)</code> pairs from the seeded generator until a cell without a mine is found, once per mine.
+	 On the first click, any mines within the <code>3x3</code> area around the clicked tile are moved one by one to
+	 cells drawn the same way from the generator's continued sequence. The expected work grows without bound as the
+	 mine density approaches its maximum.
+	 */
+	LEGACY,
+	/**
+	 The default layout since version 0.9. Cell indices are numbered <code>y * width + x</code>, and the mines are a
+	 set of <code>mines</code> distinct indices chosen with Floyd's sampling algorithm: for every <code>j</code> from
+	 <code>n - mines</code> to <code>n - 1</code>, the index <code>nextInt(j + 1)</code> is chosen, or <code>j</code>
+	 if the former was already chosen. This uses exactly one random draw per mine.
+	 <p>
+	 On the first click the generator is seeded again, and the layout is sampled anew over the <code>n</code> cells
+	 outside the <code>3x3</code> area around the clicked tile, numbered in ascending index order. Before the first
+	 click, the layout is sampled over all cells.
+	 </p>
+	 */
+	SAMPLED
+}
@@ -0,0 +1,71 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ A seedable source of random numbers for placing mines. Implementations must be deterministic, so that setting the
+ same seed always produces the same sequence, but need not be thread-safe.
+ <p>
+ The layout generated from a seed depends on both the mine layout version and the random number generator. The
+ <code>legacy</code> generator is the default, and is required to reproduce boards generated by version 0.8 and
+ earlier.
+ </p>
+ 
+ @see Minesweeper#setMineRandom(MineRandom)
+ @see MineLayout
+ */
+public interface MineRandom
+{
+	/**
+	 Sets the seed of this generator.
+	 
+	 @param seed the seed
+	 */
+	void setSeed(long seed);
+	
+	/**
+	 Returns a uniformly distributed value between zero, inclusive, and <code>bound</code>, exclusive.
+	 
+	 @param bound the upper bound, which must be positive
+	 
+	 @return a uniformly distributed value between zero and <code>bound</code>
+	 */
+	int nextInt(int bound);
+	
+	/**
+	 Returns a uniformly distributed <code>long</code> value.
+	 
+	 @return a uniformly distributed <code>long</code> value
+	 */
+	long nextLong();
+	
+	/**
+	 Returns a new generator backed by <code>java.util.Random</code>. This produces the same sequences as
+	 <code>java.util.Random</code> for the same seed.
+	 
+	 @return a new generator backed by <code>java.util.Random</code>
+	 */
+	static MineRandom legacy()
+	{
+		return new LegacyRandom();
+	}
+	
+	/**
+	 Returns a new generator producing the same values as <code>java.util.SplittableRandom</code>. Unlike the legacy
+	 generator, this is not synchronized, and setting its seed does not allocate.
+	 
+	 @return a new generator producing the same values as <code>java.util.SplittableRandom</code>
+	 */
+	static MineRandom splittable()
+	{
+		return new SplittableMineRandom();
+	}
+	
+	/**
+	 Returns a new xoroshiro128++ generator. This is the fastest generator, and has the best statistical quality.
+	 
+	 @return a new xoroshiro128++ generator
+	 */
+	static MineRandom xoroshiro()
+	{
+		return new XoroshiroRandom();
+	}
+}
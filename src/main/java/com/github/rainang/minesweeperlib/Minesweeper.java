@@ -1,11 +1,9 @@
 package com.github.rainang.minesweeperlib;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Random;
 
 /**
  A Minesweeper board class.
@@ -16,7 +14,19 @@ public final class Minesweeper
 	
 	public static final String VERSION = "${version}";
 	
-	private final Random rng = new Random();
+	/**
+	 The maximum width and height of a board.
+	 */
+	public static final int MAX_SIZE = 64;
+	
+	/**
+	 The maximum width and height of a board in large board mode.
+	 */
+	public static final int MAX_LARGE_SIZE = 10000;
+	
+	private static final int[] NO_CELLS = {};
+	
+	private MineRandom rng = MineRandom.legacy();
 	
 	private final Stopwatch clock = new Stopwatch();
 	
@@ -24,7 +34,9 @@ public final class Minesweeper
 	
 	private List<GameEvent.Listener> listeners = new ArrayList<>();
 	
-	private Tile[][] tiles;
+	private List<GameEvent.DataListener> dataListeners = new ArrayList<>();
+	
+	private Board board;
 	
 	private int mines;
 	
@@ -42,10 +54,26 @@ public final class Minesweeper
 	
 	private boolean noFlagging;
 	
-	private Tile losingTile;
+	private boolean largeBoardMode;
+	
+	private MineLayout mineLayout = MineLayout.SAMPLED;
+	
+	private boolean noGuessing;
+	
+	private LogicSolver solver;
+	
+	private int losingTile = -1;
 	
 	private long seed;
 	
+	private ReplayRecorder recorder;
+	
+	private boolean headless;
+	
+	private GameMetrics metrics;
+	
+	private int generation;
+	
 	/**
 	 Constructs a new board. The difficulty is set to <code>BEGINNER</code> by default.
 	 */
@@ -81,9 +109,10 @@ public final class Minesweeper
 	}
 	
 	/**
-	 Sets a custom game difficulty. The minimum board size is <code>5x5</code>, maximum is <code>64x64</code>. Mines
-	 must be less than or equal to 10 less the total amount of tiles. That is, <code>mines &lt;= width * height -
-	 10</code>. Each parameter will be clamped within its respective range.
+	 Sets a custom game difficulty. The minimum board size is <code>5x5</code>, maximum is <code>64x64</code>, or
+	 <code>10000x10000</code> in large board mode. Mines must be less than or equal to 10 less the total amount of
+	 tiles. That is, <code>mines &lt;= width * height - 10</code>. Each parameter will be clamped within its respective
+	 range.
 	 <p>
 	 Note: This method will invoke the <code>newGame</code> method once the new difficulty has been set.
 	 </p>
@@ -94,27 +123,75 @@ public final class Minesweeper
 	 */
 	public void setDifficulty(int width, int height, int mines)
 	{
-		width = Math.min(64, Math.max(5, width));
-		height = Math.min(64, Math.max(5, height));
-		mines = Math.min(width * height - 10, Math.max(5, mines));
+		long start = metrics == null ? 0 : System.nanoTime();
+		resize(width, height, mines);
 		
-		this.tiles = new Tile[width][height];
-		for (int y = 0; y < height; y++)
-			for (int x = 0; x < width; x++)
-				tiles[x][y] = new Tile(x, y);
+		fireEvent(GameEvent.DIFFICULTY_CHANGE_EVENT, null);
 		
-		for (int y = 0; y < height; y++)
-			for (int x = 0; x < width; x++)
-				tiles[x][y].initializeNeighbors(this);
+		newGame();
+		if (metrics != null)
+			metrics.recordSetDifficulty(System.nanoTime() - start);
+	}
+	
+	/**
+	 Sets a custom game difficulty, and generates a new board from the specified seed. This is the same as invoking
+	 <code>setDifficulty</code> and then <code>newGame(long)</code>, except that no board is generated in between, and
+	 a <code>DIFFICULTY_CHANGE_EVENT</code> is only fired if the difficulty changes. The storage of the board is reused
+	 when the new board fits in it, so resetting to the same difficulty does not allocate.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 
+	 @see #setDifficulty(int, int, int)
+	 @see #newGame(long)
+	 */
+	public void reset(int width, int height, int mines, long seed)
+	{
+		if (resize(width, height, mines))
+			fireEvent(GameEvent.DIFFICULTY_CHANGE_EVENT, null);
+		newGame(seed);
+	}
+	
+	/**
+	 Clamps and applies the difficulty, replacing the board if its size changes. The storage of the old board is
+	 reused if the new board fits in it.
+	 
+	 @return <code>true</code> if the difficulty changed
+	 */
+	private boolean resize(int width, int height, int mines)
+	{
+		width = clampSize(width, largeBoardMode);
+		height = clampSize(height, largeBoardMode);
+		mines = Math.min(width * height - 10, Math.max(5, mines));
+		
+		boolean resized = board == null || width != getWidth() || height != getHeight();
+		// neighbors are found by index arithmetic, so a board of the same size is reused as it is
+		if (resized)
+		{
+			this.board = new Board(width, height, board);
+			updateRecording();
+		}
 		
+		boolean changed = resized || mines != this.mines;
 		this.mines = mines;
 		
 		winCondition = getWidth() * getHeight() - mines;
-		
-		for (GameEvent.Listener l : listeners)
-			l.onGameEvent(GameEvent.DIFFICULTY_CHANGE_EVENT, this, null);
-		
-		newGame();
+		return changed;
+	}
+	
+	/**
+	 Clamps the width or height of a board to the sizes allowed with or without large board mode.
+	 
+	 @param size           the width or height of the board
+	 @param largeBoardMode <code>true</code> if large board mode is enabled
+	 
+	 @return the clamped size
+	 */
+	static int clampSize(int size, boolean largeBoardMode)
+	{
+		return Math.min(largeBoardMode ? MAX_LARGE_SIZE : MAX_SIZE, Math.max(5, size));
 	}
 	
 	
@@ -129,32 +206,29 @@ public final class Minesweeper
 	
 	/**
 	 Generates a new board. This resets all the counters and generates new mines. This method uses the specified
-	 <code>seed</code> for generating mines.
+	 <code>seed</code> for generating mines. The layout generated from a seed depends on the mine layout version.
 	 
 	 @param seed the seed to use for generating mines
+	 
+	 @see #setMineLayout(MineLayout)
 	 */
 	public void newGame(long seed)
 	{
+		long start = metrics == null ? 0 : System.nanoTime();
 		this.seed = seed;
 		rng.setSeed(seed);
 		
-		for (int y = 0; y < getHeight(); y++)
-			for (int x = 0; x < getWidth(); x++)
-				tiles[x][y].reset();
-		
-		for (int i = 0; i < getMines(); i++)
-		{
-			int x = rng.nextInt(getWidth());
-			int y = rng.nextInt(getHeight());
-			Tile t = tiles[x][y];
-			if (t.isMine())
-				i--;
-			else
-				t.toggleMine();
-		}
+		board.reset();
+		if (mineLayout == MineLayout.LEGACY)
+			board.placeMinesLegacy(getMines(), rng);
+		else
+			board.sampleMines(getMines(), rng, -1);
 		resetBoard(false);
-		for (GameEvent.Listener l : listeners)
-			l.onGameEvent(GameEvent.NEW_GAME_EVENT, this, null);
+		if (recorder != null)
+			recorder.newGame(this);
+		fireEvent(GameEvent.NEW_GAME_EVENT, null);
+		if (metrics != null)
+			metrics.recordNewGame(System.nanoTime() - start);
 	}
 	
 	/**
@@ -162,12 +236,11 @@ public final class Minesweeper
 	 */
 	public void restartGame()
 	{
-		for (int y = 0; y < getHeight(); y++)
-			for (int x = 0; x < getWidth(); x++)
-				tiles[x][y].restart();
+		board.restart();
 		resetBoard(true);
-		for (GameEvent.Listener l : listeners)
-			l.onGameEvent(GameEvent.RESTART_GAME_EVENT, this, null);
+		if (recorder != null)
+			recorder.restart();
+		fireEvent(GameEvent.RESTART_GAME_EVENT, null);
 	}
 	
 	/**
@@ -183,8 +256,7 @@ public final class Minesweeper
 		else
 			return;
 		
-		for (GameEvent.Listener l : listeners)
-			l.onGameEvent(GameEvent.PAUSE_EVENT, this, null);
+		fireEvent(GameEvent.PAUSE_EVENT, null);
 	}
 	
 	private void resetBoard(boolean restart)
@@ -193,8 +265,9 @@ public final class Minesweeper
 		clicks = 0;
 		actions = 0;
 		flagsUsed = 0;
-		losingTile = null;
+		losingTile = -1;
 		restarted = restart;
+		generation++;
 		setGameState(GameState.INIT);
 	}
 	
@@ -208,7 +281,9 @@ public final class Minesweeper
 	 */
 	public boolean addGameEventListener(GameEvent.Listener listener)
 	{
-		return listeners.add(listener);
+		boolean b = listeners.add(listener);
+		updateRecording();
+		return b;
 	}
 	
 	/**
@@ -220,7 +295,105 @@ public final class Minesweeper
 	 */
 	public boolean removeGameEventListener(GameEvent.Listener listener)
 	{
-		return listeners.remove(listener);
+		boolean b = listeners.remove(listener);
+		updateRecording();
+		return b;
+	}
+	
+	/**
+	 Registers a game event data listener. Data listeners are invoked after every <code>GameEvent.Listener</code>, by
+	 order of registry, and receive the indices of the cells changed by each event.
+	 <p>
+	 While a data listener is registered, the cells opened by every action are recorded. This costs time and memory in
+	 proportion to the cells opened.
+	 </p>
+	 
+	 @param listener the <code>GameEvent.DataListener</code> object to register
+	 
+	 @return <code>true</code> if the listener was successfully added
+	 */
+	public boolean addGameEventDataListener(GameEvent.DataListener listener)
+	{
+		boolean b = dataListeners.add(listener);
+		updateRecording();
+		return b;
+	}
+	
+	/**
+	 Removes a game event data listener.
+	 
+	 @param listener the <code>GameEvent.DataListener</code> object to remove
+	 
+	 @return <code>true</code> if the listener was successfully removed
+	 */
+	public boolean removeGameEventDataListener(GameEvent.DataListener listener)
+	{
+		boolean b = dataListeners.remove(listener);
+		updateRecording();
+		return b;
+	}
+	
+	/**
+	 Records the cells opened by every action while a data listener or a <code>Solver</code> is registered, and stops
+	 recording once the last of them is removed.
+	 */
+	private void updateRecording()
+	{
+		boolean recording = !dataListeners.isEmpty();
+		for (int k = 0; k < listeners.size() && !recording; k++)
+			recording = listeners.get(k) instanceof Solver;
+		board.setRecording(recording);
+	}
+	
+	/**
+	 Removes every listener, the replay recorder, and the metrics of this game, before it is returned to a pool.
+	 */
+	void detach()
+	{
+		listeners.clear();
+		dataListeners.clear();
+		board.setRecording(false);
+		recorder = null;
+		metrics = null;
+	}
+	
+	private void fireEvent(GameEvent event, Tile tile)
+	{
+		if (headless)
+			return;
+		if (metrics == null || listeners.isEmpty() && dataListeners.isEmpty())
+		{
+			dispatch(event, tile);
+			return;
+		}
+		long start = System.nanoTime();
+		dispatch(event, tile);
+		metrics.recordDispatch(event, System.nanoTime() - start);
+	}
+	
+	private void dispatch(GameEvent event, Tile tile)
+	{
+		for (GameEvent.Listener l : listeners)
+			l.onGameEvent(event, this, tile);
+		if (dataListeners.isEmpty())
+			return;
+		int[] cells;
+		switch (event)
+		{
+		case OPEN_EVENT:
+		case CHORD_EVENT:
+			cells = board.getChanges();
+			break;
+		case FLAG_EVENT:
+			// a flag event is also fired for an open tile, which cannot be flagged
+			cells = tile.isOpen() ? NO_CELLS : new int[] {board.index(tile.getX(), tile.getY())};
+			break;
+		default:
+			cells = NO_CELLS;
+		}
+		GameEventData data = new GameEventData(event, this, generation, tile, cells);
+		for (GameEvent.DataListener l : dataListeners)
+			l.onGameEvent(data);
 	}
 	
 	// GAME INPUT
@@ -234,26 +407,37 @@ public final class Minesweeper
 	 @return <code>true</code> if the flag action was successful
 	 */
 	public boolean flag(int x, int y)
+	{
+		if (metrics == null)
+			return toggleFlag(x, y);
+		long start = System.nanoTime();
+		boolean b = toggleFlag(x, y);
+		metrics.recordFlag(System.nanoTime() - start);
+		return b;
+	}
+	
+	private boolean toggleFlag(int x, int y)
 	{
 		if (gameState == GameState.END || gameState == GameState.PAUSE || noFlagging)
 			return false;
 		
-		Tile tile = getTile(x, y);
-		
-		if (tile == null)
+		if (!board.contains(x, y))
 			return false;
 		
-		boolean b = tile.toggleFlag();
+		int t = board.index(x, y);
+		boolean b = board.toggleFlag(t);
+		
+		if (recorder != null)
+			recorder.record(Replay.FLAG, t, clock.getTime());
 		
 		if (gameState == GameState.INIT)
 			return b;
 		
 		clicks++;
 		actions += b ? 1 : 0;
-		flagsUsed += b ? tile.hasFlag() ? 1 : -1 : 0;
+		flagsUsed += b ? board.hasFlag(t) ? 1 : -1 : 0;
 		
-		for (GameEvent.Listener l : listeners)
-			l.onGameEvent(GameEvent.FLAG_EVENT, this, tile);
+		fireEvent(GameEvent.FLAG_EVENT, headless ? null : new Tile(board, t));
 		
 		return b;
 	}
@@ -292,15 +476,25 @@ public final class Minesweeper
 	}
 	
 	private int doAction(int x, int y, boolean chord)
+	{
+		if (metrics == null)
+			return performAction(x, y, chord);
+		long start = System.nanoTime();
+		int i = performAction(x, y, chord);
+		metrics.recordAction(chord, System.nanoTime() - start, i);
+		return i;
+	}
+	
+	private int performAction(int x, int y, boolean chord)
 	{
 		if (gameState == GameState.END || gameState == GameState.PAUSE)
 			return 0;
 		
-		Tile tile = getTile(x, y);
-		
-		if (tile == null)
+		if (!board.contains(x, y))
 			return 0;
 		
+		int t = board.index(x, y);
+		
 		if (gameState == GameState.INIT)
 		{
 			if (chord)
@@ -309,69 +503,91 @@ public final class Minesweeper
 			setGameState(GameState.PLAY);
 			
 			if (!restarted)
-				relocateMines(tile);
+			{
+				if (noGuessing)
+				{
+					if (solver == null || solver.getBoard() != board)
+						solver = new LogicSolver(board);
+					BoardGenerator.placeNoGuess(solver, mines, seed, t, rng);
+				} else if (mineLayout == MineLayout.LEGACY)
+					relocateMines(t);
+				else
+				{
+					rng.setSeed(seed);
+					board.clearMines();
+					board.sampleMines(mines, rng, t);
+				}
+			}
+			board.track3BV();
 		}
 		
-		int i = chord ? tile.chord() : tile.open();
+		board.clearChanges();
+		int i = chord ? board.chord(t) : board.open(t);
 		clicks++;
 		actions += i > 0 ? 1 : 0;
 		cleared += Math.abs(i);
 		
+		Tile tile = headless ? null : new Tile(board, t);
+		
 		if (i != 0)
 		{
 			GameEvent e = chord ? GameEvent.CHORD_EVENT : GameEvent.OPEN_EVENT;
-			for (GameEvent.Listener l : listeners)
-				l.onGameEvent(e, this, tile);
+			fireEvent(e, tile);
 		}
 		
 		if (i < 0)
 		{
 			setGameState(GameState.END);
-			for (Tile[] ts : tiles)
-				for (Tile t : ts)
-				{
-					if (t.isOpen() && t.isMine())
-						losingTile = t;
-					t.open();
-				}
-			for (GameEvent.Listener l : listeners)
-				l.onGameEvent(GameEvent.LOSE_EVENT, this, tile);
-			return i;
+			losingTile = board.findOpenMine();
+			board.openAll();
 		} else if (cleared == winCondition)
-		{
 			setGameState(GameState.END);
-			for (GameEvent.Listener l : listeners)
-				l.onGameEvent(GameEvent.WIN_EVENT, this, tile);
-		}
+		
+		// recorded after the game ends, so the time of the last action is the final time of the game
+		if (recorder != null)
+			recorder.record(chord ? Replay.CHORD : Replay.OPEN, t, clock.getTime());
+		
+		if (i < 0)
+			fireEvent(GameEvent.LOSE_EVENT, tile);
+		else if (gameState == GameState.END)
+			fireEvent(GameEvent.WIN_EVENT, tile);
 		
 		return i;
 	}
 	
-	private void relocateMines(Tile tile)
+	private void relocateMines(int tile)
 	{
-		List<Tile> list = tile.getNeighbors();
-		list.add(tile);
-		
 		int relocate = 0;
 		
-		for (Tile t : list)
-			if (t.isMine())
+		int x0 = board.getX(tile);
+		int y0 = board.getY(tile);
+		for (int y = Math.max(0, y0 - 1); y <= Math.min(getHeight() - 1, y0 + 1); y++)
+			for (int x = Math.max(0, x0 - 1); x <= Math.min(getWidth() - 1, x0 + 1); x++)
 			{
-				t.toggleMine();
-				relocate++;
+				int t = board.index(x, y);
+				if (board.isMine(t))
+				{
+					board.toggleMine(t);
+					relocate++;
+				}
 			}
 		
+		boolean relocated = relocate > 0;
+		int retries = 0;
 		while (relocate > 0)
 		{
 			int x = rng.nextInt(getWidth());
 			int y = rng.nextInt(getHeight());
-			Tile t = tiles[x][y];
-			if (t != null && !t.isMine() && !list.contains(t))
+			int t = board.index(x, y);
+			if (!board.isMine(t) && (Math.abs(x - x0) > 1 || Math.abs(y - y0) > 1))
 			{
-				t.toggleMine();
+				board.toggleMine(t);
 				relocate--;
-			}
+			} else
+				retries++;
 		}
+		if (metrics != null && relocated)
+			metrics.recordRelocation(retries);
 	}
 	
 	private void setGameState(GameState gameState)
@@ -379,11 +595,13 @@ public final class Minesweeper
 		if (this.gameState == gameState)
 			return;
 		this.gameState = gameState;
+		// a new game resets the clock even when headless, so that switching to headless stops a running clock
+		if (gameState == GameState.INIT)
+			clock.reset();
+		if (headless)
+			return;
 		switch (gameState)
 		{
-		case INIT:
-			clock.reset();
-			break;
 		case PLAY:
 			clock.start();
 			break;
@@ -409,6 +627,126 @@ public final class Minesweeper
 		newGame();
 	}
 	
+	/**
+	 Set <code>noGuessing</code> to <code>true</code> to start no-guessing games. When the first tile of a no-guessing
+	 game is opened, mines are sampled as with the <code>SAMPLED</code> mine layout, regardless of the mine layout
+	 version, until the board can be cleared from that tile with logic alone. This method invokes the
+	 <code>newGame</code> method if the setting is changed.
+	 
+	 @param noGuessing <code>true</code> to start no-guessing games
+	 
+	 @see BoardGenerator#generateNoGuess(int, int, int, long, int, int, MineRandom)
+	 */
+	public void setNoGuessing(boolean noGuessing)
+	{
+		if (this.noGuessing == noGuessing)
+			return;
+		
+		this.noGuessing = noGuessing;
+		newGame();
+	}
+	
+	/**
+	 Sets the mine layout version used for generating mines from a seed. Select <code>LEGACY</code> to reproduce boards
+	 generated by version 0.8 and earlier. This method invokes the <code>newGame</code> method if the setting is
+	 changed.
+	 
+	 @param mineLayout the mine layout version
+	 
+	 @see MineLayout
+	 */
+	public void setMineLayout(MineLayout mineLayout)
+	{
+		if (this.mineLayout == mineLayout)
+			return;
+		
+		this.mineLayout = mineLayout;
+		newGame();
+	}
+	
+	/**
+	 Sets the random number generator used for generating mines from a seed. This method invokes the
+	 <code>newGame</code> method.
+	 
+	 @param rng the random number generator
+	 
+	 @see MineRandom
+	 */
+	public void setMineRandom(MineRandom rng)
+	{
+		this.rng = rng;
+		newGame();
+	}
+	
+	/**
+	 Attaches a replay recorder to this game, replacing any recorder attached before. The recorder records from the
+	 next new game on. Set <code>null</code> to stop recording.
+	 
+	 @param recorder the replay recorder, or <code>null</code>
+	 
+	 @see ReplayRecorder
+	 */
+	public void setReplayRecorder(ReplayRecorder recorder)
+	{
+		this.recorder = recorder;
+	}
+	
+	/**
+	 Returns the replay recorder attached to this game, or <code>null</code> if none is attached.
+	 */
+	ReplayRecorder getReplayRecorder()
+	{
+		return recorder;
+	}
+	
+	/**
+	 Set <code>headless</code> to <code>true</code> to play without events or timing, for simulations and training
+	 bots. The rules of the game are unchanged, but no game event is fired, the game time stays 0, and actions do not
+	 allocate. This method invokes the <code>newGame</code> method if the setting is changed.
+	 
+	 @param headless <code>true</code> to play headless
+	 */
+	public void setHeadless(boolean headless)
+	{
+		if (this.headless == headless)
+			return;
+		
+		this.headless = headless;
+		newGame();
+	}
+	
+	/**
+	 Attaches metrics to this game, replacing any metrics attached before. Set <code>null</code> to stop recording
+	 metrics.
+	 
+	 @param metrics the metrics to record to, or <code>null</code>
+	 
+	 @see GameMetrics
+	 */
+	public void setMetrics(GameMetrics metrics)
+	{
+		this.metrics = metrics;
+	}
+	
+	/**
+	 Set <code>largeBoardMode</code> to <code>true</code> to allow custom boards of up to <code>10000x10000</code>. If
+	 large board mode is disabled while the board exceeds <code>64x64</code>, the board is clamped by invoking the
+	 <code>setDifficulty</code> method.
+	 
+	 @param largeBoardMode <code>true</code> to allow large boards
+	 
+	 @see #setDifficulty(int, int, int)
+	 */
+	public void setLargeBoardMode(boolean largeBoardMode)
+	{
+		if (this.largeBoardMode == largeBoardMode)
+			return;
+		
+		this.largeBoardMode = largeBoardMode;
+		if (getWidth() > MAX_SIZE || getHeight() > MAX_SIZE)
+			setDifficulty(getWidth(), getHeight(), getMines());
+	}
+	
 	/**
 	 Returns the width of the board.
 	 
@@ -416,7 +754,7 @@ public final class Minesweeper
 	 */
 	public int getWidth()
 	{
-		return tiles.length;
+		return board.getWidth();
 	}
 	
 	/**
@@ -426,7 +764,7 @@ public final class Minesweeper
 	 */
 	public int getHeight()
 	{
-		return tiles[0].length;
+		return board.getHeight();
 	}
 	
 	/**
@@ -439,6 +777,16 @@ public final class Minesweeper
 		return mines;
 	}
 	
+	/**
+	 Returns the packed storage of the current board.
+	 
+	 @return the packed storage of the current board
+	 */
+	Board getBoard()
+	{
+		return board;
+	}
+	
 	/**
 	 Returns the <code>Tile</code> object at the specified coordinates.
 	 
@@ -449,15 +797,7 @@ public final class Minesweeper
 	 */
 	public Tile getTile(int x, int y)
 	{
-		return (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) ? null : tiles[x][y];
-	}
-	
-	private List<Tile> getTiles()
-	{
-		List<Tile> list = new ArrayList<>();
-		for (Tile[] ts : tiles)
-			Collections.addAll(list, ts);
-		return list;
+		return board.contains(x, y) ? new Tile(board, board.index(x, y)) : null;
 	}
 	
 	/**
@@ -527,7 +867,7 @@ public final class Minesweeper
 	 */
 	public Tile getLosingTile()
 	{
-		return losingTile;
+		return losingTile < 0 ? null : new Tile(board, losingTile);
 	}
 	
 	/**
@@ -545,6 +885,66 @@ public final class Minesweeper
 		return noFlagging;
 	}
 	
+	/**
+	 Returns <code>true</code> if this is a no-guessing game.
+	 
+	 @return <code>true</code> if this is a no-guessing game
+	 */
+	public boolean isNoGuessing()
+	{
+		return noGuessing;
+	}
+	
+	/**
+	 Returns the mine layout version used for generating mines from a seed.
+	 
+	 @return the mine layout version
+	 */
+	public MineLayout getMineLayout()
+	{
+		return mineLayout;
+	}
+	
+	/**
+	 Returns the random number generator used for generating mines from a seed.
+	 
+	 @return the random number generator
+	 */
+	public MineRandom getMineRandom()
+	{
+		return rng;
+	}
+	
+	/**
+	 Returns <code>true</code> if large board mode is enabled.
+	 
+	 @return <code>true</code> if large board mode is enabled
+	 */
+	public boolean isLargeBoardMode()
+	{
+		return largeBoardMode;
+	}
+	
+	/**
+	 Returns <code>true</code> if this game is played headless.
+	 
+	 @return <code>true</code> if this game is played headless
+	 */
+	public boolean isHeadless()
+	{
+		return headless;
+	}
+	
+	/**
+	 Returns the metrics attached to this game, or <code>null</code> if none are attached.
+	 
+	 @return the metrics attached to this game, or <code>null</code>
+	 */
+	public GameMetrics getMetrics()
+	{
+		return metrics;
+	}
+	
 	/**
 	 Returns <code>true</code> if the game is over, and the player won.
 	 
@@ -552,67 +952,246 @@ public final class Minesweeper
 	 */
 	public boolean isGameWon()
 	{
-		return gameState == GameState.END && losingTile == null;
+		return gameState == GameState.END && losingTile < 0;
 	}
 	
 	/**
 	 Returns the number of openings on this board. This may return an inaccurate value if invoked during the
 	 <code>INIT</code> game state due to the relocation of mines when the game begins.
+	 <p>
+	 The openings and 3BV value are computed together in a single linear pass and cached until the mines change.
+	 </p>
 	 
 	 @return the number of openings on this board
 	 */
 	public int countOpenings()
 	{
-		List<Tile> list = getTiles();
-		list.removeIf(t -> t.isMine() || t.getMineCount() > 0);
-		
-		int i = 0;
-		while (!list.isEmpty())
-		{
-			Queue<Tile> q = new LinkedList<>();
-			q.offer(list.remove(0));
-			while (!q.isEmpty())
-			{
-				Tile t = q.poll();
-				list.remove(t);
-				t.getNeighbors()
-				 .stream()
-				 .filter(list::contains)
-				 .forEach(n ->
-				 {
-					 list.remove(n);
-					 q.offer(n);
-				 });
-			}
-			i++;
-		}
-		return i;
+		return board.countOpenings();
 	}
 	
 	/**
 	 Returns the 3BV value of this board. This may return an inaccurate value if invoked during the
 	 <code>INIT</code> game state due to the relocation of mines when the game begins.
+	 <p>
+	 The openings and 3BV value are computed together in a single linear pass and cached until the mines change.
+	 </p>
 	 
 	 @return the 3BV value of this board
 	 */
 	public int count3BV()
 	{
-		List<Tile> list = getTiles();
-		int shores = 0;
-		for (Tile t : list)
+		return board.count3BV();
+	}
+	
+	/**
+	 Returns the 3BV value of this board that is left to clear. That is, the number of openings with no cell opened yet,
+	 plus the number of cells with nearby mines that do not border an opening and are not opened yet. Before the first
+	 click this is the same as <code>count3BV</code>.
+	 <p>
+	 The value is not counted on every call. The openings are computed once at the first click, when the mines are
+	 final, and every open and chord action updates the value as it opens cells. A loss does not change the value, but
+	 for a lost game restored with <code>GameFormat</code>, the cells revealed by the loss count as cleared.
+	 </p>
+	 
+	 @return the 3BV value of this board that is left to clear
+	 */
+	public int getRemaining3BV()
+	{
+		return board.isTracking3BV() ? board.getRemaining3BV() : board.count3BV();
+	}
+	
+	/**
+	 Returns the 3BV value cleared per second of game time, or 0 if no time has passed, as in headless mode.
+	 
+	 @return the 3BV value cleared per second
+	 
+	 @see #getRemaining3BV()
+	 */
+	public double get3BVPerSecond()
+	{
+		long time = clock.getTime();
+		return time == 0 ? 0 : (count3BV() - getRemaining3BV()) * 1000.0 / time;
+	}
+	
+	/**
+	 Returns the 3BV value cleared per click, or 0 if no click was made. This is 1 for a game cleared with one click
+	 per 3BV, more if chording saved clicks, and less if clicks were wasted.
+	 
+	 @return the 3BV value cleared per click
+	 
+	 @see #getRemaining3BV()
+	 @see #getClicks()
+	 */
+	public double getEfficiency()
+	{
+		return clicks == 0 ? 0 : (double) (count3BV() - getRemaining3BV()) / clicks;
+	}
+	
+	/**
+	 Returns whether the tile at the specified position is on the frontier. The frontier is the set of closed tiles,
+	 with or without a flag, that border an open tile without a mine, which are the tiles a solver or hint has to
+	 consider.
+	 <p>
+	 The frontier is built once, the first time it is queried, and from then on it is updated by every open and chord
+	 action as it opens tiles, for this and every following game on a board of the same size. A query takes constant
+	 time, and listing the frontier takes time in proportion to its size rather than to the size of the board.
+	 </p>
+	 
+	 @param x the x-coordinate
+	 @param y the y-coordinate
+	 
+	 @return <code>true</code> if the tile is on the frontier, <code>false</code> otherwise or if out of bounds
+	 */
+	public boolean isFrontier(int x, int y)
+	{
+		return board.contains(x, y) && frontier().isFrontier(board.index(x, y));
+	}
+	
+	/**
+	 Returns the amount of tiles on the frontier.
+	 
+	 @return the amount of tiles on the frontier
+	 
+	 @see #isFrontier(int, int)
+	 */
+	public int getFrontierSize()
+	{
+		return frontier().getFrontierSize();
+	}
+	
+	/**
+	 Returns a list of all tiles on the frontier, in row-major order.
+	 
+	 @return a list of all tiles on the frontier
+	 
+	 @see #isFrontier(int, int)
+	 */
+	public List<Tile> getFrontierTiles()
+	{
+		Board board = frontier();
+		List<Tile> tiles = new ArrayList<>(board.getFrontierSize());
+		for (int i = board.nextFrontier(0); i >= 0; i = board.nextFrontier(i + 1))
+			tiles.add(new Tile(board, i));
+		return tiles;
+	}
+	
+	private Board frontier()
+	{
+		if (!board.isTrackingFrontier())
+			board.trackFrontier();
+		return board;
+	}
+	
+	/**
+	 Writes the state of this game in the format of <code>GameFormat</code>, after its version.
+	 
+	 @param buffer the buffer to write to
+	 */
+	void write(ByteBuffer buffer)
+	{
+		GameFormat.putVarint(buffer, getWidth());
+		GameFormat.putVarint(buffer, getHeight());
+		GameFormat.putFixed64(buffer, seed);
+		buffer.put((byte) ((noFlagging ? 1 : 0) | (restarted ? 2 : 0) | gameState.ordinal() << 2));
+		GameFormat.putVarint(buffer, clicks);
+		GameFormat.putVarint(buffer, actions);
+		GameFormat.putVarint(buffer, GameFormat.zigzag(flagsUsed));
+		GameFormat.putVarint(buffer, cleared);
+		GameFormat.putVarint(buffer, clock.getTime());
+		GameFormat.putVarint(buffer, losingTile + 1);
+		board.write(buffer);
+	}
+	
+	/**
+	 Restores the state of this game in the format of <code>GameFormat</code>, after its version. The buffer is
+	 checked to hold the whole record, and the record to be consistent, before this game is changed: the amount of
+	 mines must be within the range of <code>setDifficulty</code>, a losing tile must be an open mine of an ended game,
+	 and the cleared tiles must match the open cells.
+	 
+	 @param buffer the buffer to read from
+	 
+	 @throws IllegalArgumentException if the record is inconsistent
+	 @throws BufferUnderflowException if the buffer does not hold the whole record
+	 */
+	void read(ByteBuffer buffer)
+	{
+		int width = (int) GameFormat.getVarint(buffer);
+		int height = (int) GameFormat.getVarint(buffer);
+		if (width < 5 || height < 5 || width > MAX_LARGE_SIZE || height > MAX_LARGE_SIZE)
+			throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+		long seed = GameFormat.getFixed64(buffer);
+		int bits = buffer.get();
+		int clicks = (int) GameFormat.getVarint(buffer);
+		int actions = (int) GameFormat.getVarint(buffer);
+		int flagsUsed = (int) GameFormat.unzigzag(GameFormat.getVarint(buffer));
+		int cleared = (int) GameFormat.getVarint(buffer);
+		long time = GameFormat.getVarint(buffer);
+		int losingTile = (int) GameFormat.getVarint(buffer) - 1;
+		int size = width * height;
+		if (buffer.remaining() < Board.getEncodedSize(size))
+			throw new BufferUnderflowException();
+		GameState gameState = GameState.values()[bits >>> 2 & 3];
+		int[] counts = Board.countEncoded(buffer, size);
+		int mines = counts[0];
+		if (mines < 5 || mines > size - 10)
+			throw new IllegalArgumentException("Invalid amount of mines: " + mines);
+		if (losingTile < -1 || losingTile >= size)
+			throw new IllegalArgumentException("Invalid losing tile: " + losingTile);
+		if (losingTile >= 0)
 		{
-			if (t.isMine() || t.getMineCount() == 0)
-				continue;
-			for (Tile n : t.getNeighbors())
-				if (!n.isMine() && n.getMineCount() == 0)
-				{
-					shores++;
-					break;
-				}
+			// a loss reveals the board, so every revealed cell is open, but only the cells opened by actions count
+			if (gameState != GameState.END || !Board.isEncodedOpenMine(buffer, size, losingTile))
+				throw new IllegalArgumentException("Invalid losing tile: " + losingTile);
+			if (cleared < 1 || cleared > counts[1])
+				throw new IllegalArgumentException("Invalid amount of cleared tiles: " + cleared);
+		} else if (cleared != counts[1] || counts[2] != 0 || gameState == GameState.END && cleared != size - mines)
+			throw new IllegalArgumentException("Invalid amount of cleared tiles: " + cleared);
+		
+		boolean resized = width != getWidth() || height != getHeight();
+		if (resized)
+		{
+			largeBoardMode |= width > MAX_SIZE || height > MAX_SIZE;
+			board = new Board(width, height, board);
+			updateRecording();
 		}
+		board.read(buffer);
+		
+		this.seed = seed;
+		this.noFlagging = (bits & 1) != 0;
+		this.restarted = (bits & 2) != 0;
+		this.clicks = clicks;
+		this.actions = actions;
+		this.flagsUsed = flagsUsed;
+		this.cleared = cleared;
+		this.losingTile = losingTile;
+		generation++;
+		this.mines = mines;
+		winCondition = size - mines;
 		
-		list.removeIf(t -> t.isMine() || t.getMineCount() == 0);
-		return list.size() - shores + countOpenings();
+		this.gameState = gameState;
+		clock.reset();
+		clock.time = time;
+		if (gameState == GameState.PLAY)
+			clock.start();
+		if (gameState != GameState.INIT)
+			board.track3BV();
+		if (recorder != null)
+			recorder.discard();
+		
+		if (resized)
+			fireEvent(GameEvent.DIFFICULTY_CHANGE_EVENT, null);
+		fireEvent(GameEvent.NEW_GAME_EVENT, null);
+	}
+	
+	/**
+	 Adds time to the game clock, such as the time a game in progress spent evicted from a
+	 <code>GameSessionManager</code>, during which the clock of a played game would have kept running.
+	 
+	 @param millis the time to add in milliseconds
+	 */
+	void addTime(long millis)
+	{
+		clock.time += Math.max(0, millis);
 	}
 	
 	private class Stopwatch
@@ -0,0 +1,198 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ A pool of <code>Minesweeper</code> objects, for games that are played briefly and often, such as by bots.
+ <p>
+ Released games are kept by board size and large board mode, and a game acquired for a size is taken from the games
+ released with the size it will be clamped to. It is reset to the requested amount of mines and seed with the
+ <code>reset</code> method, which does not allocate. If no game of that size is available, a game of another size is
+ taken instead, which reuses the storage of its board if the new board fits in it, and a new game is created only if
+ the pool is empty. At most a fixed amount of games is kept per size.
+ </p>
+ <p>
+ Games are created with the default settings, after which the initializer of the pool is applied, for instance to
+ enable headless mode. When a game is released, its listeners, replay recorder, and metrics are removed, so a game is
+ handed out without any of them, and the initializer must not add any. Settings changed while a game is acquired are
+ kept. A pool is thread-safe, but every game may only be used by one thread at a time.
+ </p>
+ */
+public final class MinesweeperPool
+{
+	private final Consumer<? super Minesweeper> initializer;
+	
+	private final int maxIdle;
+	
+	private final List<Bucket> buckets = new ArrayList<>();
+	
+	// an identity map adds and removes entries without allocating
+	private final Set<Minesweeper> pooled = Collections.newSetFromMap(new IdentityHashMap<>());
+	
+	private int idle;
+	
+	/**
+	 Constructs a pool of games with the default settings, keeping at most 64 games per board size.
+	 */
+	public MinesweeperPool()
+	{
+		this(ms ->
+		{
+		}, 64);
+	}
+	
+	/**
+	 Constructs a pool.
+	 
+	 @param initializer the action applied to every game the pool creates
+	 @param maxIdle     the maximum amount of released games kept per board size
+	 */
+	public MinesweeperPool(Consumer<? super Minesweeper> initializer, int maxIdle)
+	{
+		this.initializer = initializer;
+		this.maxIdle = Math.max(1, maxIdle);
+	}
+	
+	/**
+	 Acquires a game with the specified difficulty, and a new board generated from the seed.
+	 
+	 @param difficulty the difficulty setting
+	 @param seed       the seed to use for generating mines
+	 
+	 @return a game ready to be played
+	 */
+	public Minesweeper acquire(Difficulty difficulty, long seed)
+	{
+		switch (difficulty)
+		{
+		default:
+		case BEGINNER:
+			return acquire(9, 9, 10, seed);
+		case INTERMEDIATE:
+			return acquire(16, 16, 40, seed);
+		case EXPERT:
+			return acquire(30, 16, 99, seed);
+		}
+	}
+	
+	/**
+	 Acquires a game with the specified custom difficulty, and a new board generated from the seed. The difficulty is
+	 clamped as by the <code>setDifficulty</code> method of the game.
+	 
+	 @param width  the width of the board
+	 @param height the height of the board
+	 @param mines  the amount of mines
+	 @param seed   the seed to use for generating mines
+	 
+	 @return a game ready to be played
+	 
+	 @see Minesweeper#reset(int, int, int, long)
+	 */
+	public Minesweeper acquire(int width, int height, int mines, long seed)
+	{
+		Minesweeper ms = take(width, height);
+		if (ms == null)
+		{
+			ms = new Minesweeper();
+			initializer.accept(ms);
+		}
+		ms.reset(width, height, mines, seed);
+		return ms;
+	}
+	
+	private synchronized Minesweeper take(int width, int height)
+	{
+		if (idle == 0)
+			return null;
+		Bucket any = null;
+		for (int k = 0; k < buckets.size(); k++)
+		{
+			Bucket b = buckets.get(k);
+			if (b.games.isEmpty())
+				continue;
+			// the game clamps the requested size when reset, so compare with the size it will have
+			if (b.width == Minesweeper.clampSize(width, b.largeBoardMode) &&
+				b.height == Minesweeper.clampSize(height, b.largeBoardMode))
+				return poll(b);
+			any = b;
+		}
+		return poll(any);
+	}
+	
+	private Minesweeper poll(Bucket bucket)
+	{
+		idle--;
+		Minesweeper ms = bucket.games.pop();
+		pooled.remove(ms);
+		return ms;
+	}
+	
+	/**
+	 Releases a game acquired from this pool, removing its listeners, replay recorder, and metrics. The game must not
+	 be used after it is released.
+	 
+	 @param minesweeper the game to release
+	 
+	 @throws IllegalStateException if the game is already released, and has not been acquired since
+	 */
+	public synchronized void release(Minesweeper minesweeper)
+	{
+		// a game released twice would be handed to two players
+		if (pooled.contains(minesweeper))
+			throw new IllegalStateException("Game is already released");
+		minesweeper.detach();
+		put(minesweeper);
+	}
+	
+	private void put(Minesweeper ms)
+	{
+		Bucket bucket = null;
+		for (int k = 0; k < buckets.size(); k++)
+		{
+			Bucket b = buckets.get(k);
+			if (b.width == ms.getWidth() && b.height == ms.getHeight() && b.largeBoardMode == ms.isLargeBoardMode())
+				bucket = b;
+		}
+		if (bucket == null)
+			buckets.add(bucket = new Bucket(ms.getWidth(), ms.getHeight(), ms.isLargeBoardMode()));
+		if (bucket.games.size() >= maxIdle)
+			return;
+		bucket.games.push(ms);
+		pooled.add(ms);
+		idle++;
+	}
+	
+	/**
+	 Returns the amount of released games kept by this pool.
+	 
+	 @return the amount of released games kept by this pool
+	 */
+	public synchronized int getIdleCount()
+	{
+		return idle;
+	}
+	
+	private static final class Bucket
+	{
+		private final int width;
+		
+		private final int height;
+		
+		private final boolean largeBoardMode;
+		
+		private final ArrayDeque<Minesweeper> games = new ArrayDeque<>();
+		
+		private Bucket(int width, int height, boolean largeBoardMode)
+		{
+			this.width = width;
+			this.height = height;
+			this.largeBoardMode = largeBoardMode;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ An enum of policies for an <code>AsyncEventDispatcher</code> whose buffer is full.
+ */
+public enum OverflowPolicy
+{
+	/**
+	 The game thread waits until the consumer has made room for the event. No event is lost, but a slow listener can
+	 stall the game once the buffer is full.
+	 */
+	BLOCK,
+	/**
+	 The oldest event in the buffer is discarded to make room for the event. The game thread never waits.
+	 */
+	DROP_OLDEST,
+	/**
+	 The event is merged into a pending overflow that keeps only the latest event of each type and game, and is
+	 delivered after the events in the buffer. A merged event counts the events it replaces. Events are not merged
+	 across a new game, restart, or difficulty change of their game. The game thread never waits, and the last event
+	 of each type is never lost.
+	 */
+	COALESCE
+}
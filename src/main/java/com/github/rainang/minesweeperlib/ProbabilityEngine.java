@@ -0,0 +1,517 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ Computes the exact probability of each cell of a board containing a mine, given the open cells and the deductions of a
+ live logic solver.
+ <p>
+ Cells the solver has not resolved are split into the frontier, which borders an open number, and the interior, which
+ does not. An open zero is a number too, whose closed neighbors, left by a cascade that skipped their flags, must all
+ be free of mines. The frontier is partitioned into independent components of cells linked by shared numbers. The solutions of
+ each component are counted by dynamic programming over its cells in breadth-first order, memoizing the partial
+ assignments by the mines still needed by the numbers that are only partly assigned. A forward pass counts the
+ solutions of each component by mine count. These counts are then combined with every other component, and with the
+ binomial count of ways to place the remaining mines in the interior, into a weight for each mine count. A backward
+ pass with these weights yields the probability of each cell. Components are processed in parallel.
+ </p>
+ <p>
+ Counts are rescaled whenever they grow too large or too small for a <code>double</code>. Every probability is a ratio
+ of counts on the same scale, so rescaling does not change the result.
+ </p>
+ */
+final class ProbabilityEngine
+{
+	private static final double HUGE = 1e200;
+	
+	private static final double TINY = 1e-200;
+	
+	private ProbabilityEngine() {}
+	
+	/**
+	 Computes the probability of each cell containing a mine. Open cells have a probability of 0, or of 1 if they
+	 contain a mine.
+	 
+	 @param board  the board
+	 @param mines  the amount of mines on the board
+	 @param solver a solver in live mode that has revealed the open cells of the board and deduced what it can
+	 
+	 @return the probability of each cell containing a mine, indexed by <code>y * width + x</code>
+	 */
+	static double[] compute(Board board, int mines, LogicSolver solver)
+	{
+		int size = board.getSize();
+		double[] p = new double[size];
+		IntSet safeCells = solver.getSafeCells();
+		IntSet mineCells = solver.getMineCells();
+		
+		int[] var = new int[size];
+		Arrays.fill(var, -1);
+		IntList frontier = new IntList(64);
+		IntList numbers = new IntList(64);
+		int interior = 0;
+		int known = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (board.isOpen(i))
+			{
+				if (board.isMine(i))
+				{
+					p[i] = 1;
+					known++;
+				} else
+					numbers.add(i);
+			} else if (mineCells.contains(i))
+			{
+				p[i] = 1;
+				known++;
+			} else if (!safeCells.contains(i))
+			{
+				if (bordersNumber(board, i))
+				{
+					var[i] = frontier.size();
+					frontier.add(i);
+				} else
+					interior++;
+			}
+		}
+		
+		Component[] components = partition(board, mineCells, numbers, frontier, var);
+		IntStream.range(0, components.length)
+				 .parallel()
+				 .forEach(c -> components[c].forward());
+		
+		double interiorProbability = combine(components, mines - known, interior);
+		
+		IntStream.range(0, components.length)
+				 .parallel()
+				 .forEach(c -> components[c].backward());
+		
+		for (Component c : components)
+			for (int k = 0; k < c.cells.length; k++)
+				p[c.cells[k]] = c.marginals[k];
+		if (interior > 0)
+			for (int i = 0; i < size; i++)
+				if (!board.isOpen(i) && var[i] < 0 && !safeCells.contains(i) && !mineCells.contains(i))
+					p[i] = interiorProbability;
+		return p;
+	}
+	
+	private static boolean bordersNumber(Board board, int i)
+	{
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int x = board.getX(i);
+		int y = board.getY(i);
+		for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+			{
+				int j = ny * width + nx;
+				if (board.isOpen(j) && !board.isMine(j))
+					return true;
+			}
+		return false;
+	}
+	
+	/**
+	 Builds a constraint for every open number bordering the frontier, and splits the frontier into components of
+	 cells linked by constraints.
+	 */
+	private static Component[] partition(Board board, IntSet mineCells, IntList numbers, IntList frontier, int[] var)
+	{
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int vars = frontier.size();
+		int[][] constraintVars = new int[numbers.size()][];
+		int[] constraintNeed = new int[numbers.size()];
+		int constraints = 0;
+		int[] degree = new int[vars];
+		
+		int[] buffer = new int[8];
+		for (int k = 0; k < numbers.size(); k++)
+		{
+			int i = numbers.get(k);
+			int need = board.getMineCount(i);
+			int n = 0;
+			int x = board.getX(i);
+			int y = board.getY(i);
+			for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+				for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+				{
+					int j = ny * width + nx;
+					if (var[j] >= 0)
+						buffer[n++] = var[j];
+					else if (board.isOpen(j) ? board.isMine(j) : mineCells.contains(j))
+						need--;
+				}
+			if (n == 0)
+				continue;
+			constraintVars[constraints] = Arrays.copyOf(buffer, n);
+			constraintNeed[constraints++] = need;
+			for (int m = 0; m < n; m++)
+				degree[buffer[m]]++;
+		}
+		
+		int[][] varConstraints = new int[vars][];
+		for (int v = 0; v < vars; v++)
+			varConstraints[v] = new int[degree[v]];
+		Arrays.fill(degree, 0);
+		for (int c = 0; c < constraints; c++)
+			for (int v : constraintVars[c])
+				varConstraints[v][degree[v]++] = c;
+		
+		List<Component> components = new ArrayList<>();
+		int[] position = new int[vars];
+		int[] first = new int[constraints];
+		int[] last = new int[constraints];
+		boolean[] seen = new boolean[vars];
+		IntQueue queue = new IntQueue(64);
+		for (int v = 0; v < vars; v++)
+		{
+			if (seen[v])
+				continue;
+			IntList order = new IntList(16);
+			seen[v] = true;
+			queue.offer(v);
+			while (!queue.isEmpty())
+			{
+				int u = queue.poll();
+				order.add(u);
+				for (int c : varConstraints[u])
+					for (int w : constraintVars[c])
+						if (!seen[w])
+						{
+							seen[w] = true;
+							queue.offer(w);
+						}
+			}
+			components.add(new Component(order, frontier, varConstraints, constraintVars, constraintNeed, position, first,
+										 last));
+		}
+		return components.toArray(new Component[components.size()]);
+	}
+	
+	/**
+	 Combines the solution counts of every component with the ways of placing the remaining mines in the interior, and
+	 sets the weight of each mine count of each component.
+	 
+	 @return the probability of an interior cell containing a mine
+	 */
+	private static double combine(Component[] components, int mines, int interior)
+	{
+		int n = components.length;
+		double[][] prefix = new double[n + 1][];
+		double[][] suffix = new double[n + 1][];
+		prefix[0] = new double[] {1};
+		suffix[n] = new double[] {1};
+		for (int c = 0; c < n; c++)
+			prefix[c + 1] = convolve(prefix[c], components[c].totals);
+		for (int c = n - 1; c >= 0; c--)
+			suffix[c] = convolve(components[c].totals, suffix[c + 1]);
+		double[] all = prefix[n];
+		
+		// binomial weights of the interior, indexed by the amount of mines on the frontier
+		double[] weight = new double[all.length];
+		double[] log = new double[all.length];
+		double max = Double.NEGATIVE_INFINITY;
+		double logBinomial = 0;
+		int r = 0;
+		for (int k = all.length - 1; k >= 0; k--)
+		{
+			int rest = mines - k;
+			if (rest < 0 || rest > interior)
+			{
+				log[k] = Double.NEGATIVE_INFINITY;
+				continue;
+			}
+			for (; r < rest; r++)
+				logBinomial += Math.log(interior - r) - Math.log(r + 1);
+			log[k] = logBinomial;
+			max = Math.max(max, logBinomial);
+		}
+		if (max > Double.NEGATIVE_INFINITY)
+			for (int k = 0; k < all.length; k++)
+				weight[k] = Math.exp(log[k] - max);
+		
+		for (int c = 0; c < n; c++)
+		{
+			double[] others = convolve(prefix[c], suffix[c + 1]);
+			double[] w = new double[components[c].totals.length];
+			for (int a = 0; a < w.length; a++)
+				for (int j = 0; j < others.length; j++)
+					w[a] += others[j] * weight[a + j];
+			components[c].weights = w;
+		}
+		
+		if (interior == 0)
+			return 0;
+		double num = 0;
+		double den = 0;
+		for (int k = 0; k < all.length; k++)
+		{
+			num += all[k] * weight[k] * (mines - k);
+			den += all[k] * weight[k];
+		}
+		return den > 0 ? num / den / interior : 0;
+	}
+	
+	private static double[] convolve(double[] a, double[] b)
+	{
+		double[] c = new double[a.length + b.length - 1];
+		double max = 0;
+		for (int i = 0; i < a.length; i++)
+			for (int j = 0; j < b.length; j++)
+				c[i + j] += a[i] * b[j];
+		for (double v : c)
+			max = Math.max(max, v);
+		if (max > 0)
+			for (int i = 0; i < c.length; i++)
+				c[i] /= max;
+		return c;
+	}
+	
+	private static void rescale(Node[] layer, boolean forward)
+	{
+		double max = 0;
+		for (Node node : layer)
+			for (double v : forward ? node.f : node.b)
+				max = Math.max(max, v);
+		if (max <= HUGE && max >= TINY || max == 0)
+			return;
+		double scale = 1 / max;
+		for (Node node : layer)
+		{
+			double[] values = forward ? node.f : node.b;
+			for (int a = 0; a < values.length; a++)
+				values[a] *= scale;
+		}
+	}
+	
+	/**
+	 An independent component of the frontier. The state of the dynamic program before cell <code>i</code> is the amount
+	 of mines still needed by each constraint that has some cells before <code>i</code> and some after.
+	 */
+	private static final class Component
+	{
+		private final int[] cells;
+		
+		private final int[] constraintNeed;
+		
+		/**
+		 The constraints passed through at each step: the active ones first, followed by those starting at the step.
+		 */
+		private final int[][] through;
+		
+		private final int[] active;
+		
+		private final boolean[][] has;
+		
+		private final int[][] remaining;
+		
+		private final boolean[][] keep;
+		
+		private Node[][] layers;
+		
+		private double[] totals;
+		
+		private double[] weights;
+		
+		private double[] marginals;
+		
+		/**
+		 Constructs a component from its cells in breadth-first order. The position, first, and last arrays are
+		 scratch space shared by every component, indexed by frontier cell and by constraint.
+		 */
+		private Component(IntList order, IntList frontier, int[][] varConstraints, int[][] constraintVars,
+						  int[] constraintNeed, int[] position, int[] first, int[] last)
+		{
+			int n = order.size();
+			this.cells = new int[n];
+			this.constraintNeed = constraintNeed;
+			for (int k = 0; k < n; k++)
+			{
+				cells[k] = frontier.get(order.get(k));
+				position[order.get(k)] = k;
+			}
+			for (int k = 0; k < n; k++)
+				for (int c : varConstraints[order.get(k)])
+				{
+					first[c] = n;
+					last[c] = -1;
+					for (int v : constraintVars[c])
+					{
+						first[c] = Math.min(first[c], position[v]);
+						last[c] = Math.max(last[c], position[v]);
+					}
+				}
+			
+			through = new int[n][];
+			active = new int[n + 1];
+			has = new boolean[n][];
+			remaining = new int[n][];
+			keep = new boolean[n][];
+			IntList current = new IntList(16);
+			for (int k = 0; k < n; k++)
+			{
+				IntList step = new IntList(current.size() + 8);
+				for (int m = 0; m < current.size(); m++)
+					step.add(current.get(m));
+				active[k] = current.size();
+				for (int c : varConstraints[order.get(k)])
+					if (first[c] == k)
+						step.add(c);
+				through[k] = new int[step.size()];
+				has[k] = new boolean[step.size()];
+				remaining[k] = new int[step.size()];
+				keep[k] = new boolean[step.size()];
+				current = new IntList(step.size());
+				for (int m = 0; m < step.size(); m++)
+				{
+					int c = step.get(m);
+					through[k][m] = c;
+					for (int v : constraintVars[c])
+					{
+						int pos = position[v];
+						if (pos == k)
+							has[k][m] = true;
+						else if (pos > k)
+							remaining[k][m]++;
+					}
+					keep[k][m] = last[c] > k;
+					if (keep[k][m])
+						current.add(c);
+				}
+			}
+		}
+		
+		/**
+		 Counts the solutions of this component by mine count, memoizing the states of each step.
+		 */
+		private void forward()
+		{
+			int n = cells.length;
+			layers = new Node[n + 1][];
+			Node root = new Node(new byte[0], 1);
+			root.f[0] = 1;
+			layers[0] = new Node[] {root};
+			for (int k = 0; k < n; k++)
+			{
+				Map<Node, Node> next = new HashMap<>();
+				for (Node node : layers[k])
+					for (int x = 0; x <= 1; x++)
+					{
+						byte[] state = step(k, node.state, x);
+						if (state == null)
+							continue;
+						Node key = new Node(state, k + 2);
+						Node target = next.putIfAbsent(key, key);
+						if (target == null)
+							target = key;
+						for (int a = 0; a < node.f.length; a++)
+							target.f[a + x] += node.f[a];
+						if (x == 0)
+							node.next0 = target;
+						else
+							node.next1 = target;
+					}
+				layers[k + 1] = next.values()
+									.toArray(new Node[next.size()]);
+				rescale(layers[k + 1], true);
+			}
+			totals = layers[n].length == 0 ? new double[n + 1] : layers[n][0].f;
+		}
+		
+		/**
+		 Computes the probability of each cell containing a mine, weighting each mine count of this component.
+		 */
+		private void backward()
+		{
+			int n = cells.length;
+			marginals = new double[n];
+			for (Node node : layers[n])
+				node.b = weights;
+			for (int k = n - 1; k >= 0; k--)
+			{
+				double mine = 0;
+				double total = 0;
+				for (Node node : layers[k])
+				{
+					node.b = new double[k + 1];
+					for (int a = 0; a <= k; a++)
+					{
+						double b1 = node.next1 == null ? 0 : node.next1.b[a + 1];
+						double b = (node.next0 == null ? 0 : node.next0.b[a]) + b1;
+						node.b[a] = b;
+						mine += node.f[a] * b1;
+						total += node.f[a] * b;
+					}
+				}
+				marginals[k] = total > 0 ? mine / total : 0;
+				rescale(layers[k], false);
+				layers[k + 1] = null;
+			}
+			layers = null;
+		}
+		
+		/**
+		 Returns the state after assigning <code>x</code> mines to cell <code>k</code>, or <code>null</code> if a
+		 constraint can no longer be satisfied.
+		 */
+		private byte[] step(int k, byte[] state, int x)
+		{
+			int[] cs = through[k];
+			byte[] next = new byte[active[k + 1]];
+			int m = 0;
+			for (int u = 0; u < cs.length; u++)
+			{
+				int r = u < active[k] ? state[u] : constraintNeed[cs[u]];
+				if (has[k][u])
+					r -= x;
+				if (r < 0 || r > remaining[k][u])
+					return null;
+				if (keep[k][u])
+					next[m++] = (byte) r;
+			}
+			return next;
+		}
+	}
+	
+	private static final class Node
+	{
+		private final byte[] state;
+		
+		private final int hash;
+		
+		private final double[] f;
+		
+		private double[] b;
+		
+		private Node next0;
+		
+		private Node next1;
+		
+		private Node(byte[] state, int length)
+		{
+			this.state = state;
+			this.hash = Arrays.hashCode(state);
+			this.f = new double[length];
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			return o instanceof Node && Arrays.equals(state, ((Node) o).state);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,315 @@
+package com.github.rainang.minesweeperlib;
+
+import java.nio.ByteBuffer;
+
+/**
+ An immutable recording of a game, as the seed and settings it was generated with and every action taken, along with
+ the time and 3BV value claimed for it.
+ <p>
+ Replays are created by a <code>ReplayRecorder</code>, and reconstructed and verified by a <code>ReplayEngine</code>.
+ Every action is stored as a varint holding the action and the index of its tile, followed by a varint holding the
+ milliseconds of game time elapsed since the previous action, so a typical action takes three or four bytes.
+ </p>
+ <p>
+ Version 1 of the format is laid out as follows. Varints are unsigned LEB128.
+ </p>
+ <ol>
+ <li>byte: format version</li>
+ <li>varint: width, height, then mines</li>
+ <li>8 bytes: seed, big-endian</li>
+ <li>byte: bit 0 the mine layout ordinal, bit 1 set if no-flagging, bit 2 set if no-guessing, and bits 4-7 the
+ random number generator</li>
+ <li>varint: claimed time in milliseconds, then claimed 3BV</li>
+ <li>varint: the amount of actions, then the length of the actions in bytes</li>
+ <li>for every action, a varint holding <code>index &lt;&lt; 2 | action</code>, where the action is 0 for open, 1 for
+ chord, 2 for flag, and 3 for restart, followed by a varint holding the elapsed game time</li>
+ </ol>
+ 
+ @see ReplayRecorder
+ @see ReplayEngine
+ */
+public final class Replay
+{
+	/**
+	 The version of the format written by this class.
+	 */
+	public static final int VERSION = 1;
+	
+	static final int OPEN = 0;
+	
+	static final int CHORD = 1;
+	
+	static final int FLAG = 2;
+	
+	static final int RESTART = 3;
+	
+	static final int LEGACY_RANDOM = 0;
+	
+	static final int SPLITTABLE_RANDOM = 1;
+	
+	static final int XOROSHIRO_RANDOM = 2;
+	
+	static final int UNKNOWN_RANDOM = 15;
+	
+	private final int width;
+	
+	private final int height;
+	
+	private final int mines;
+	
+	private final long seed;
+	
+	private final MineLayout mineLayout;
+	
+	private final int random;
+	
+	private final boolean noFlagging;
+	
+	private final boolean noGuessing;
+	
+	private final long time;
+	
+	private final int bv;
+	
+	private final int actionCount;
+	
+	private final byte[] actions;
+	
+	Replay(int width, int height, int mines, long seed, MineLayout mineLayout, int random, boolean noFlagging,
+		   boolean noGuessing, long time, int bv, int actionCount, byte[] actions)
+	{
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.seed = seed;
+		this.mineLayout = mineLayout;
+		this.random = random;
+		this.noFlagging = noFlagging;
+		this.noGuessing = noGuessing;
+		this.time = time;
+		this.bv = bv;
+		this.actionCount = actionCount;
+		this.actions = actions;
+	}
+	
+	/**
+	 Returns the identifier of the specified random number generator, or <code>UNKNOWN_RANDOM</code> if it is not one
+	 of the generators provided by <code>MineRandom</code>.
+	 */
+	static int getRandomId(MineRandom rng)
+	{
+		if (rng instanceof LegacyRandom)
+			return LEGACY_RANDOM;
+		if (rng instanceof SplittableMineRandom)
+			return SPLITTABLE_RANDOM;
+		if (rng instanceof XoroshiroRandom)
+			return XOROSHIRO_RANDOM;
+		return UNKNOWN_RANDOM;
+	}
+	
+	/**
+	 Returns a new random number generator for the specified identifier.
+	 
+	 @throws IllegalArgumentException if the identifier is <code>UNKNOWN_RANDOM</code>
+	 */
+	static MineRandom newRandom(int random)
+	{
+		switch (random)
+		{
+		case LEGACY_RANDOM:
+			return MineRandom.legacy();
+		case SPLITTABLE_RANDOM:
+			return MineRandom.splittable();
+		case XOROSHIRO_RANDOM:
+			return MineRandom.xoroshiro();
+		default:
+			throw new IllegalArgumentException("Unknown random number generator: " + random);
+		}
+	}
+	
+	/**
+	 Returns the width of the board.
+	 
+	 @return the width of the board
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 Returns the height of the board.
+	 
+	 @return the height of the board
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	/**
+	 Returns the amount of mines on the board.
+	 
+	 @return the amount of mines on the board
+	 */
+	public int getMines()
+	{
+		return mines;
+	}
+	
+	/**
+	 Returns the seed the game was generated with.
+	 
+	 @return the seed the game was generated with
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+	
+	/**
+	 Returns the mine layout version the game was generated with.
+	 
+	 @return the mine layout version
+	 */
+	public MineLayout getMineLayout()
+	{
+		return mineLayout;
+	}
+	
+	/**
+	 Returns <code>true</code> if this is a recording of a no-flagging game.
+	 
+	 @return <code>true</code> if this is a recording of a no-flagging game
+	 */
+	public boolean isNoFlagging()
+	{
+		return noFlagging;
+	}
+	
+	/**
+	 Returns <code>true</code> if this is a recording of a no-guessing game.
+	 
+	 @return <code>true</code> if this is a recording of a no-guessing game
+	 */
+	public boolean isNoGuessing()
+	{
+		return noGuessing;
+	}
+	
+	/**
+	 Returns the claimed game time in milliseconds.
+	 
+	 @return the claimed game time in milliseconds
+	 */
+	public long getTime()
+	{
+		return time;
+	}
+	
+	/**
+	 Returns the claimed 3BV value of the board.
+	 
+	 @return the claimed 3BV value of the board
+	 */
+	public int get3BV()
+	{
+		return bv;
+	}
+	
+	/**
+	 Returns the amount of actions recorded, including restarts.
+	 
+	 @return the amount of actions recorded
+	 */
+	public int getActionCount()
+	{
+		return actionCount;
+	}
+	
+	int getRandom()
+	{
+		return random;
+	}
+	
+	byte[] getActions()
+	{
+		return actions;
+	}
+	
+	/**
+	 Returns the size of this replay when written, in bytes.
+	 
+	 @return the size of this replay when written
+	 */
+	public int getEncodedSize()
+	{
+		return 1 + GameFormat.varintSize(width) + GameFormat.varintSize(height) + GameFormat.varintSize(mines) + 8 +
+			   1 + GameFormat.varintSize(time) + GameFormat.varintSize(bv) + GameFormat.varintSize(actionCount) +
+			   GameFormat.varintSize(actions.length) + actions.length;
+	}
+	
+	/**
+	 Writes this replay to the buffer at its current position.
+	 
+	 @param buffer the buffer to write to
+	 
+	 @throws java.nio.BufferOverflowException if the buffer has less than <code>getEncodedSize</code> bytes remaining
+	 */
+	public void write(ByteBuffer buffer)
+	{
+		buffer.put((byte) VERSION);
+		GameFormat.putVarint(buffer, width);
+		GameFormat.putVarint(buffer, height);
+		GameFormat.putVarint(buffer, mines);
+		GameFormat.putFixed64(buffer, seed);
+		buffer.put((byte) (mineLayout.ordinal() | (noFlagging ? 2 : 0) | (noGuessing ? 4 : 0) | random << 4));
+		GameFormat.putVarint(buffer, time);
+		GameFormat.putVarint(buffer, bv);
+		GameFormat.putVarint(buffer, actionCount);
+		GameFormat.putVarint(buffer, actions.length);
+		buffer.put(actions);
+	}
+	
+	/**
+	 Reads a replay from the buffer at its current position. The actions are not decoded until the replay is
+	 reconstructed.
+	 
+	 @param buffer the buffer to read from
+	 
+	 @return the replay read
+	 
+	 @throws IllegalArgumentException          if the version is not supported, or the replay is malformed, including
+	 an action length past the end of the buffer
+	 @throws java.nio.BufferUnderflowException if the buffer ends before the actions of the replay
+	 */
+	public static Replay read(ByteBuffer buffer)
+	{
+		int version = buffer.get() & 0xFF;
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported replay version: " + version);
+		int width = (int) GameFormat.getVarint(buffer);
+		int height = (int) GameFormat.getVarint(buffer);
+		int mines = (int) GameFormat.getVarint(buffer);
+		if (width < 5 || height < 5 || width > Minesweeper.MAX_LARGE_SIZE || height > Minesweeper.MAX_LARGE_SIZE)
+			throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+		if (mines < 5 || mines > width * height - 10)
+			throw new IllegalArgumentException("Invalid amount of mines: " + mines);
+		long seed = GameFormat.getFixed64(buffer);
+		int bits = buffer.get() & 0xFF;
+		long time = GameFormat.getVarint(buffer);
+		int bv = (int) GameFormat.getVarint(buffer);
+		int actionCount = (int) GameFormat.getVarint(buffer);
+		int length = (int) GameFormat.getVarint(buffer);
+		// checked before allocating, so a malformed length cannot exhaust the heap
+		if (length < 0 || length > buffer.remaining())
+			throw new IllegalArgumentException("Invalid length of actions: " + length);
+		// every action is encoded in at least two bytes
+		if (actionCount < 0 || actionCount > length / 2)
+			throw new IllegalArgumentException("Invalid amount of actions: " + actionCount);
+		byte[] actions = new byte[length];
+		buffer.get(actions);
+		return new Replay(width, height, mines, seed, MineLayout.values()[bits & 1], bits >>> 4, (bits & 2) != 0,
+						  (bits & 4) != 0, time, bv, actionCount, actions);
+	}
+}
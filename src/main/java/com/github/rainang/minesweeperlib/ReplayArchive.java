@@ -0,0 +1,680 @@
+package com.github.rainang.minesweeperlib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
+
+/**
+ An append-only store of replays on local disk, which can be queried without reconstructing any games.
+ <p>
+ An archive is a directory of segments. Each segment consists of a data file holding the replays, in the format of
+ <code>Replay</code>, one after the other, and an index file holding a fixed-size entry for every replay. An entry
+ holds the seed, dimensions, result, time, 3BV value, and clicks of the game, along with the offset and length of its
+ replay in the data file. A segment is closed and a new one started when its data file would grow beyond the segment
+ size. Games are numbered from zero in the order they were appended, across all segments.
+ </p>
+ <p>
+ Queries read the index files through <code>MappedByteBuffer</code>, and present each entry as a reusable view, so a
+ query only touches the 48 bytes of each entry, and the replays are only read if requested. Queries split the index
+ into chunks, and scan them in parallel using the common <code>ForkJoinPool</code>.
+ </p>
+ <p>
+ Appended games are buffered, and written to the files when the buffers fill, when the archive is flushed or closed,
+ and before every query. When an archive is opened, an entry that was only partly written, or whose replay was not
+ written in full, is discarded along with everything after it. An archive is not thread-safe, and must only be opened
+ by one <code>ReplayArchive</code> object at a time.
+ </p>
+ */
+public final class ReplayArchive implements Closeable
+{
+	/**
+	 The default maximum size of the data file of a segment.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+	
+	/**
+	 The size of an index entry, in bytes.
+	 */
+	static final int ENTRY_SIZE = 48;
+	
+	private static final int MAX_ENTRIES = Integer.MAX_VALUE / ENTRY_SIZE;
+	
+	private static final int CHUNK_SIZE = 1 << 16;
+	
+	private static final int SEED = 0;
+	
+	private static final int OFFSET = 8;
+	
+	private static final int TIME = 16;
+	
+	private static final int LENGTH = 24;
+	
+	private static final int MINES = 28;
+	
+	private static final int BV = 32;
+	
+	private static final int CLICKS = 36;
+	
+	private static final int WIDTH = 40;
+	
+	private static final int HEIGHT = 42;
+	
+	private static final int RESULT = 44;
+	
+	private static final int FLAGS = 45;
+	
+	private static final int WON = 1;
+	
+	private static final int LOST = 2;
+	
+	private final Path directory;
+	
+	private final int segmentSize;
+	
+	private final List<Segment> segments = new ArrayList<>();
+	
+	private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(ENTRY_SIZE * 1024);
+	
+	private final ByteBuffer dataBuffer = ByteBuffer.allocateDirect(1 << 16);
+	
+	private Segment active;
+	
+	private FileChannel indexChannel;
+	
+	private FileChannel dataChannel;
+	
+	private ReplayEngine engine;
+	
+	private ReplayArchive(Path directory, int segmentSize) throws IOException
+	{
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+		
+		List<Integer> numbers = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.idx"))
+		{
+			for (Path p : stream)
+			{
+				String name = p.getFileName()
+							   .toString();
+				numbers.add(Integer.parseInt(name.substring(8, name.length() - 4)));
+			}
+		}
+		numbers.sort(null);
+		
+		long start = 0;
+		for (int number : numbers)
+		{
+			Segment s = new Segment(number, start);
+			s.count = (int) (Files.size(s.index) / ENTRY_SIZE);
+			s.dataSize = Files.size(s.data);
+			segments.add(s);
+			start += s.count;
+		}
+		if (segments.isEmpty())
+			segments.add(new Segment(0, 0));
+		openActive(segments.get(segments.size() - 1));
+	}
+	
+	/**
+	 Opens the archive in the specified directory with the default segment size, creating it if it does not exist.
+	 
+	 @param directory the directory of the archive
+	 
+	 @return the opened archive
+	 
+	 @throws IOException if the archive cannot be opened
+	 */
+	public static ReplayArchive open(Path directory) throws IOException
+	{
+		return open(directory, DEFAULT_SEGMENT_SIZE);
+	}
+	
+	/**
+	 Opens the archive in the specified directory, creating it if it does not exist. The segment size only affects
+	 segments created from now on. A replay larger than the segment size is stored in a segment of its own.
+	 
+	 @param directory   the directory of the archive
+	 @param segmentSize the maximum size of the data file of a segment, up to <code>Integer.MAX_VALUE</code> bytes
+	 
+	 @return the opened archive
+	 
+	 @throws IOException if the archive cannot be opened
+	 */
+	public static ReplayArchive open(Path directory, int segmentSize) throws IOException
+	{
+		if (segmentSize <= 0)
+			throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+		return new ReplayArchive(directory, segmentSize);
+	}
+	
+	/**
+	 Opens the files of the last segment for appending, after discarding any entry or replay that was not written in
+	 full.
+	 */
+	private void openActive(Segment s) throws IOException
+	{
+		active = s;
+		indexChannel = FileChannel.open(s.index, StandardOpenOption.CREATE, StandardOpenOption.READ,
+										StandardOpenOption.WRITE);
+		dataChannel = FileChannel.open(s.data, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		
+		ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+		long end = 0;
+		while (s.count > 0)
+		{
+			entry.clear();
+			indexChannel.read(entry, (long) (s.count - 1) * ENTRY_SIZE);
+			end = entry.getLong(OFFSET) + entry.getInt(LENGTH);
+			if (entry.hasRemaining() || end > s.dataSize)
+				s.count--;
+			else
+				break;
+		}
+		if (s.count == 0)
+			end = 0;
+		s.dataSize = end;
+		indexChannel.truncate((long) s.count * ENTRY_SIZE);
+		dataChannel.truncate(end);
+		indexChannel.position((long) s.count * ENTRY_SIZE);
+		dataChannel.position(end);
+	}
+	
+	/**
+	 Appends the game being recorded by the specified recorder. The entry is filled from the state of the recorded
+	 game.
+	 
+	 @param recorder the recorder of the game to append
+	 
+	 @return the number of the appended game
+	 
+	 @throws IOException           if the game cannot be written
+	 @throws IllegalStateException if the recorder is not recording a game
+	 */
+	public long append(ReplayRecorder recorder) throws IOException
+	{
+		Replay replay = recorder.getReplay();
+		Minesweeper ms = recorder.getMinesweeper();
+		return append(replay, ms, ms.getTime());
+	}
+	
+	/**
+	 Appends a replay. The replay is reconstructed to fill its entry, so the entry holds the time and 3BV value of the
+	 reconstructed game rather than the ones the replay claims.
+	 
+	 @param replay the replay to append
+	 
+	 @return the number of the appended game
+	 
+	 @throws IOException              if the replay cannot be written
+	 @throws IllegalArgumentException if the replay cannot be reconstructed
+	 */
+	public long append(Replay replay) throws IOException
+	{
+		if (engine == null)
+			engine = new ReplayEngine();
+		Minesweeper ms = engine.replay(replay);
+		return append(replay, ms, engine.getTime());
+	}
+	
+	private long append(Replay replay, Minesweeper ms, long time) throws IOException
+	{
+		int length = replay.getEncodedSize();
+		if (active.count > 0 && (active.dataSize + length > segmentSize || active.count == MAX_ENTRIES))
+		{
+			flush();
+			indexChannel.close();
+			dataChannel.close();
+			Segment s = new Segment(active.number + 1, active.start + active.count);
+			segments.add(s);
+			openActive(s);
+		}
+		if (dataBuffer.remaining() < length || !indexBuffer.hasRemaining())
+			flush();
+		if (length > dataBuffer.capacity())
+		{
+			ByteBuffer b = ByteBuffer.allocate(length);
+			replay.write(b);
+			b.flip();
+			while (b.hasRemaining())
+				dataChannel.write(b);
+		} else
+			replay.write(dataBuffer);
+		
+		int result = ms.isGameWon() ? WON : ms.getGameState() == GameState.END ? LOST : 0;
+		int flags = (ms.isRestarted() ? 1 : 0) | (replay.isNoFlagging() ? 2 : 0) | (replay.isNoGuessing() ? 4 : 0);
+		indexBuffer.putLong(replay.getSeed())
+				   .putLong(active.dataSize)
+				   .putLong(time)
+				   .putInt(length)
+				   .putInt(replay.getMines())
+				   .putInt(ms.count3BV())
+				   .putInt(ms.getClicks())
+				   .putChar((char) replay.getWidth())
+				   .putChar((char) replay.getHeight())
+				   .put((byte) result)
+				   .put((byte) flags)
+				   .putShort((short) 0);
+		active.dataSize += length;
+		active.count++;
+		return active.start + active.count - 1;
+	}
+	
+	/**
+	 Writes the buffered games to the files of the archive.
+	 
+	 @throws IOException if the games cannot be written
+	 */
+	public void flush() throws IOException
+	{
+		// replays are written before their entries, so an entry never refers to a replay that was not written
+		dataBuffer.flip();
+		while (dataBuffer.hasRemaining())
+			dataChannel.write(dataBuffer);
+		dataBuffer.clear();
+		indexBuffer.flip();
+		while (indexBuffer.hasRemaining())
+			indexChannel.write(indexBuffer);
+		indexBuffer.clear();
+	}
+	
+	/**
+	 Returns the amount of games in this archive.
+	 
+	 @return the amount of games in this archive
+	 */
+	public long size()
+	{
+		return active.start + active.count;
+	}
+	
+	/**
+	 Returns the entry of the specified game.
+	 
+	 @param game the number of the game
+	 
+	 @return the entry of the game
+	 
+	 @throws IOException               if the archive cannot be read
+	 @throws IndexOutOfBoundsException if there is no game with the specified number
+	 */
+	public Entry get(long game) throws IOException
+	{
+		if (game < 0 || game >= size())
+			throw new IndexOutOfBoundsException("Game: " + game + ", size: " + size());
+		flush();
+		int lo = 0;
+		int hi = segments.size() - 1;
+		while (lo < hi)
+		{
+			int mid = (lo + hi + 1) >>> 1;
+			if (segments.get(mid).start <= game)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		Segment s = segments.get(lo);
+		s.map();
+		Entry entry = new Entry(s);
+		entry.move((int) (game - s.start));
+		return entry;
+	}
+	
+	/**
+	 Performs the action for every entry, in the order the games were appended. The entry passed to the action is a
+	 view that is moved from game to game, and must not be retained.
+	 
+	 @param action the action to perform
+	 
+	 @throws IOException if the archive cannot be read
+	 */
+	public void forEach(Consumer<? super Entry> action) throws IOException
+	{
+		flush();
+		for (Segment s : segments)
+		{
+			s.map();
+			Entry entry = new Entry(s);
+			for (int i = 0; i < s.count; i++)
+			{
+				entry.move(i);
+				action.accept(entry);
+			}
+		}
+	}
+	
+	/**
+	 Counts the entries matching the filter, in parallel. The entry passed to the filter is a view that is moved from
+	 game to game, and must not be retained.
+	 
+	 @param filter the filter to match
+	 
+	 @return the amount of matching entries
+	 
+	 @throws IOException if the archive cannot be read
+	 */
+	public long count(Predicate<? super Entry> filter) throws IOException
+	{
+		return chunks().parallelStream()
+					   .mapToLong(c -> c.count(filter))
+					   .sum();
+	}
+	
+	/**
+	 Finds the entries matching the filter, in parallel. The entry passed to the filter is a view that is moved from
+	 game to game, and must not be retained.
+	 
+	 @param filter the filter to match
+	 
+	 @return the numbers of the matching games, in ascending order
+	 
+	 @throws IOException if the archive cannot be read
+	 */
+	public long[] find(Predicate<? super Entry> filter) throws IOException
+	{
+		return chunks().parallelStream()
+					   .flatMapToLong(c -> c.find(filter))
+					   .toArray();
+	}
+	
+	private List<Chunk> chunks() throws IOException
+	{
+		flush();
+		List<Chunk> chunks = new ArrayList<>();
+		for (Segment s : segments)
+		{
+			s.map();
+			for (int from = 0; from < s.count; from += CHUNK_SIZE)
+				chunks.add(new Chunk(s, from, Math.min(s.count, from + CHUNK_SIZE)));
+		}
+		return chunks;
+	}
+	
+	/**
+	 Writes the buffered games to the files of the archive, and closes them.
+	 
+	 @throws IOException if the games cannot be written
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		} finally
+		{
+			indexChannel.close();
+			dataChannel.close();
+		}
+	}
+	
+	private final class Segment
+	{
+		private final int number;
+		
+		private final long start;
+		
+		private final Path index;
+		
+		private final Path data;
+		
+		private int count;
+		
+		private long dataSize;
+		
+		private MappedByteBuffer indexMap;
+		
+		private MappedByteBuffer dataMap;
+		
+		private Segment(int number, long start)
+		{
+			this.number = number;
+			this.start = start;
+			this.index = directory.resolve(String.format("segment-%08d.idx", number));
+			this.data = directory.resolve(String.format("segment-%08d.dat", number));
+		}
+		
+		/**
+		 Maps the files of this segment, if they have grown since they were last mapped.
+		 */
+		private void map() throws IOException
+		{
+			if (indexMap == null || indexMap.capacity() < (long) count * ENTRY_SIZE)
+				try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ))
+				{
+					indexMap = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * ENTRY_SIZE);
+				}
+			if (dataMap == null || dataMap.capacity() < dataSize)
+				try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ))
+				{
+					dataMap = channel.map(FileChannel.MapMode.READ_ONLY, 0, dataSize);
+				}
+		}
+	}
+	
+	private static final class Chunk
+	{
+		private final Segment segment;
+		
+		private final int from;
+		
+		private final int to;
+		
+		private Chunk(Segment segment, int from, int to)
+		{
+			this.segment = segment;
+			this.from = from;
+			this.to = to;
+		}
+		
+		private long count(Predicate<? super Entry> filter)
+		{
+			Entry entry = new Entry(segment);
+			long n = 0;
+			for (int i = from; i < to; i++)
+			{
+				entry.move(i);
+				if (filter.test(entry))
+					n++;
+			}
+			return n;
+		}
+		
+		private LongStream find(Predicate<? super Entry> filter)
+		{
+			Entry entry = new Entry(segment);
+			LongStream.Builder games = LongStream.builder();
+			for (int i = from; i < to; i++)
+			{
+				entry.move(i);
+				if (filter.test(entry))
+					games.add(entry.getGame());
+			}
+			return games.build();
+		}
+	}
+	
+	/**
+	 The index entry of a game in an archive. An entry is a view of the mapped index file, and reads every attribute
+	 from it.
+	 */
+	public static final class Entry
+	{
+		private final ByteBuffer index;
+		
+		private final ByteBuffer data;
+		
+		private final long start;
+		
+		private int position;
+		
+		private long game;
+		
+		private Entry(Segment segment)
+		{
+			this.index = segment.indexMap;
+			this.data = segment.dataMap;
+			this.start = segment.start;
+		}
+		
+		private void move(int i)
+		{
+			position = i * ENTRY_SIZE;
+			game = start + i;
+		}
+		
+		/**
+		 Returns the number of this game in the archive.
+		 
+		 @return the number of this game
+		 */
+		public long getGame()
+		{
+			return game;
+		}
+		
+		/**
+		 Returns the seed the game was generated with.
+		 
+		 @return the seed the game was generated with
+		 */
+		public long getSeed()
+		{
+			return index.getLong(position + SEED);
+		}
+		
+		/**
+		 Returns the width of the board.
+		 
+		 @return the width of the board
+		 */
+		public int getWidth()
+		{
+			return index.getChar(position + WIDTH);
+		}
+		
+		/**
+		 Returns the height of the board.
+		 
+		 @return the height of the board
+		 */
+		public int getHeight()
+		{
+			return index.getChar(position + HEIGHT);
+		}
+		
+		/**
+		 Returns the amount of mines on the board.
+		 
+		 @return the amount of mines on the board
+		 */
+		public int getMines()
+		{
+			return index.getInt(position + MINES);
+		}
+		
+		/**
+		 Returns <code>true</code> if the game was won.
+		 
+		 @return <code>true</code> if the game was won
+		 */
+		public boolean isWon()
+		{
+			return index.get(position + RESULT) == WON;
+		}
+		
+		/**
+		 Returns <code>true</code> if the game was lost.
+		 
+		 @return <code>true</code> if the game was lost
+		 */
+		public boolean isLost()
+		{
+			return index.get(position + RESULT) == LOST;
+		}
+		
+		/**
+		 Returns <code>true</code> if the game was restarted.
+		 
+		 @return <code>true</code> if the game was restarted
+		 */
+		public boolean isRestarted()
+		{
+			return (index.get(position + FLAGS) & 1) != 0;
+		}
+		
+		/**
+		 Returns <code>true</code> if the game was a no-flagging game.
+		 
+		 @return <code>true</code> if the game was a no-flagging game
+		 */
+		public boolean isNoFlagging()
+		{
+			return (index.get(position + FLAGS) & 2) != 0;
+		}
+		
+		/**
+		 Returns <code>true</code> if the game was a no-guessing game.
+		 
+		 @return <code>true</code> if the game was a no-guessing game
+		 */
+		public boolean isNoGuessing()
+		{
+			return (index.get(position + FLAGS) & 4) != 0;
+		}
+		
+		/**
+		 Returns the game time in milliseconds.
+		 
+		 @return the game time in milliseconds
+		 */
+		public long getTime()
+		{
+			return index.getLong(position + TIME);
+		}
+		
+		/**
+		 Returns the 3BV value of the board.
+		 
+		 @return the 3BV value of the board
+		 */
+		public int get3BV()
+		{
+			return index.getInt(position + BV);
+		}
+		
+		/**
+		 Returns the amount of clicks.
+		 
+		 @return the amount of clicks
+		 */
+		public int getClicks()
+		{
+			return index.getInt(position + CLICKS);
+		}
+		
+		/**
+		 Reads the replay of the game from the mapped data file.
+		 
+		 @return the replay of the game
+		 */
+		public Replay getReplay()
+		{
+			ByteBuffer buffer = data.duplicate();
+			buffer.position((int) index.getLong(position + OFFSET));
+			return Replay.read(buffer);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package com.github.rainang.minesweeperlib;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ Reconstructs games from replays, and verifies the time and 3BV value claimed by a replay.
+ <p>
+ An engine replays the recorded actions on a game of its own, which is played headless, so no events are fired and
+ no time is taken. The game is reused for every replay, and its board is only reallocated when the dimensions change, so
+ replaying costs little more than generating the mines and performing the actions. An engine is not thread-safe, but
+ <code>verifyAll</code> verifies many replays in parallel with one engine per thread.
+ </p>
+ 
+ @see Replay
+ @see ReplayRecorder
+ */
+public final class ReplayEngine
+{
+	private final Minesweeper minesweeper = new Minesweeper();
+	
+	private int random = Replay.LEGACY_RANDOM;
+	
+	private long time;
+	
+	/**
+	 Constructs an engine with a headless game.
+	 */
+	public ReplayEngine()
+	{
+		minesweeper.setHeadless(true);
+	}
+	
+	/**
+	 Reconstructs the game of the specified replay by generating its board from the seed, and performing every action.
+	 The returned game is owned by this engine, and is reused by the next replay. It is played headless, so its game
+	 time is 0, and the time of the replay is returned by <code>getTime</code> instead.
+	 
+	 @param replay the replay to reconstruct
+	 
+	 @return the reconstructed game
+	 
+	 @throws IllegalArgumentException if the replay uses an unknown random number generator, or an action is malformed
+	 */
+	public Minesweeper replay(Replay replay)
+	{
+		configure(replay);
+		minesweeper.newGame(replay.getSeed());
+		
+		int width = replay.getWidth();
+		int size = width * replay.getHeight();
+		ByteBuffer actions = ByteBuffer.wrap(replay.getActions());
+		time = 0;
+		try
+		{
+			for (int k = 0; k < replay.getActionCount(); k++)
+			{
+				long code = GameFormat.getVarint(actions);
+				time += GameFormat.getVarint(actions);
+				long index = code >>> 2;
+				if (index >= size)
+					throw new IllegalArgumentException("Invalid tile index: " + index);
+				int x = (int) index % width;
+				int y = (int) index / width;
+				switch ((int) code & 3)
+				{
+				case Replay.OPEN:
+					minesweeper.open(x, y);
+					break;
+				case Replay.CHORD:
+					minesweeper.chord(x, y);
+					break;
+				case Replay.FLAG:
+					minesweeper.flag(x, y);
+					break;
+				case Replay.RESTART:
+					minesweeper.restartGame();
+					time = 0;
+					break;
+				}
+			}
+		} catch (BufferUnderflowException e)
+		{
+			throw new IllegalArgumentException("Replay ends before its last action", e);
+		}
+		return minesweeper;
+	}
+	
+	/**
+	 Applies the settings of the replay to the game of this engine. Settings are only changed if they differ, since
+	 every change generates a new game.
+	 */
+	private void configure(Replay replay)
+	{
+		if (replay.getRandom() != random)
+		{
+			minesweeper.setMineRandom(Replay.newRandom(replay.getRandom()));
+			random = replay.getRandom();
+		}
+		minesweeper.setMineLayout(replay.getMineLayout());
+		minesweeper.setNoFlagging(replay.isNoFlagging());
+		minesweeper.setNoGuessing(replay.isNoGuessing());
+		if (replay.getWidth() > Minesweeper.MAX_SIZE || replay.getHeight() > Minesweeper.MAX_SIZE)
+			minesweeper.setLargeBoardMode(true);
+		if (replay.getWidth() != minesweeper.getWidth() || replay.getHeight() != minesweeper.getHeight() ||
+			replay.getMines() != minesweeper.getMines())
+			minesweeper.setDifficulty(replay.getWidth(), replay.getHeight(), replay.getMines());
+	}
+	
+	/**
+	 Returns the game time of the last replay reconstructed by this engine, which is the sum of the time elapsed
+	 between its actions since the last restart.
+	 
+	 @return the game time of the last replay, in milliseconds
+	 */
+	public long getTime()
+	{
+		return time;
+	}
+	
+	/**
+	 Verifies a replay. A replay is verified if its reconstructed game is won, and both the time and 3BV value of the
+	 reconstructed game are the ones the replay claims.
+	 
+	 @param replay the replay to verify
+	 
+	 @return <code>true</code> if the replay is verified
+	 */
+	public boolean verify(Replay replay)
+	{
+		try
+		{
+			replay(replay);
+		} catch (IllegalArgumentException e)
+		{
+			return false;
+		}
+		return minesweeper.isGameWon() && time == replay.getTime() && minesweeper.count3BV() == replay.get3BV();
+	}
+	
+	/**
+	 Reads and verifies a replay file. A file that cannot be read, or does not hold exactly one replay, is not
+	 verified.
+	 
+	 @param file the replay file to verify
+	 
+	 @return <code>true</code> if the replay is verified
+	 */
+	public boolean verify(Path file)
+	{
+		try
+		{
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+			Replay replay = Replay.read(buffer);
+			return !buffer.hasRemaining() && verify(replay);
+		} catch (IOException | IllegalArgumentException | BufferUnderflowException e)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 Verifies every regular file in the specified directory as a replay file, in parallel, using the common
+	 <code>ForkJoinPool</code>.
+	 
+	 @param directory the directory of replay files
+	 
+	 @return whether each file is verified, by path, in path order
+	 
+	 @throws IOException if the directory cannot be listed
+	 
+	 @see #verify(Path)
+	 */
+	public static Map<Path, Boolean> verifyAll(Path directory) throws IOException
+	{
+		List<Path> files;
+		try (Stream<Path> stream = Files.list(directory))
+		{
+			files = stream.filter(Files::isRegularFile)
+						  .collect(Collectors.toList());
+		}
+		ThreadLocal<ReplayEngine> engines = ThreadLocal.withInitial(ReplayEngine::new);
+		boolean[] verified = new boolean[files.size()];
+		IntStream.range(0, files.size())
+				 .parallel()
+				 .forEach(i -> verified[i] = engines.get()
+				                                    .verify(files.get(i)));
+		Map<Path, Boolean> results = new TreeMap<>();
+		for (int i = 0; i < verified.length; i++)
+			results.put(files.get(i), verified[i]);
+		return results;
+	}
+}
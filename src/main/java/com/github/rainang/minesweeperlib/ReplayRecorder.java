@@ -0,0 +1,165 @@
+package com.github.rainang.minesweeperlib;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ Records the games played on a <code>Minesweeper</code> object as replays.
+ <p>
+ A recorder is attached to a game with its <code>setReplayRecorder</code> method, and records from the next new game
+ on. Every open, chord, and flag action that reaches the board is appended to an in-memory buffer as it happens, along
+ with the game time elapsed since the previous action, and restarts are recorded as actions of their own. Actions
+ rejected before reaching the board, such as those taken while the game is paused or over, are not recorded, since
+ they do not change the game.
+ </p>
+ <p>
+ A recorder is not thread-safe, and must only be used on the thread the game is played on.
+ </p>
+ 
+ @see Minesweeper#setReplayRecorder(ReplayRecorder)
+ @see ReplayEngine
+ */
+public final class ReplayRecorder
+{
+	private Minesweeper minesweeper;
+	
+	private ByteBuffer actions = ByteBuffer.allocate(256);
+	
+	private int actionCount;
+	
+	private long lastTime;
+	
+	private long seed;
+	
+	private int random;
+	
+	private MineLayout mineLayout;
+	
+	private boolean noFlagging;
+	
+	private boolean noGuessing;
+	
+	/**
+	 Starts recording the new game, which was just generated.
+	 */
+	void newGame(Minesweeper minesweeper)
+	{
+		this.minesweeper = minesweeper;
+		seed = minesweeper.getSeed();
+		random = Replay.getRandomId(minesweeper.getMineRandom());
+		mineLayout = minesweeper.getMineLayout();
+		noFlagging = minesweeper.isNoFlagging();
+		noGuessing = minesweeper.isNoGuessing();
+		actions.clear();
+		actionCount = 0;
+		lastTime = 0;
+	}
+	
+	/**
+	 Appends an action to the recording.
+	 
+	 @param action the action, one of the action constants of <code>Replay</code>
+	 @param index  the index of the tile of the action
+	 @param time   the game time after the action, in milliseconds
+	 */
+	void record(int action, int index, long time)
+	{
+		if (minesweeper == null)
+			return;
+		if (actions.remaining() < 15)
+		{
+			ByteBuffer grown = ByteBuffer.wrap(Arrays.copyOf(actions.array(), actions.capacity() * 2));
+			grown.position(actions.position());
+			actions = grown;
+		}
+		GameFormat.putVarint(actions, (long) index << 2 | action);
+		GameFormat.putVarint(actions, time - lastTime);
+		lastTime = time;
+		actionCount++;
+	}
+	
+	/**
+	 Records a restart of the game.
+	 */
+	void restart()
+	{
+		record(Replay.RESTART, 0, lastTime);
+		lastTime = 0;
+	}
+	
+	/**
+	 Discards the recording, for a game that was replaced by other means than a new game, until the next new game.
+	 */
+	void discard()
+	{
+		minesweeper = null;
+	}
+	
+	/**
+	 Resumes a recording on the specified game, which was just restored to the state of the recorded game, such as
+	 when an evicted session is loaded again. The recording continues from the actions of the replay, which was taken
+	 from the recorder of the game before it was written.
+	 
+	 @param minesweeper the restored game
+	 @param replay      the replay of the game recorded so far
+	 */
+	void resume(Minesweeper minesweeper, Replay replay)
+	{
+		this.minesweeper = minesweeper;
+		seed = replay.getSeed();
+		random = replay.getRandom();
+		mineLayout = replay.getMineLayout();
+		noFlagging = replay.isNoFlagging();
+		noGuessing = replay.isNoGuessing();
+		byte[] recorded = replay.getActions();
+		actions = ByteBuffer.wrap(Arrays.copyOf(recorded, Math.max(256, recorded.length * 2)));
+		actions.position(recorded.length);
+		actionCount = replay.getActionCount();
+		// the time of the last action is the sum of the elapsed times since the last restart
+		ByteBuffer buffer = ByteBuffer.wrap(recorded);
+		lastTime = 0;
+		for (int k = 0; k < actionCount; k++)
+		{
+			long code = GameFormat.getVarint(buffer);
+			lastTime += GameFormat.getVarint(buffer);
+			if ((code & 3) == Replay.RESTART)
+				lastTime = 0;
+		}
+	}
+	
+	/**
+	 Returns the game being recorded, or <code>null</code> if no game is being recorded.
+	 */
+	Minesweeper getMinesweeper()
+	{
+		return minesweeper;
+	}
+	
+	/**
+	 Returns <code>true</code> if a game is being recorded. A recording starts with the first new game after the
+	 recorder was attached, and is discarded if the state of the game is read from a <code>GameFormat</code> record,
+	 unless the game is a session of a <code>GameSessionManager</code> loaded after eviction.
+	 
+	 @return <code>true</code> if a game is being recorded
+	 */
+	public boolean isRecording()
+	{
+		return minesweeper != null;
+	}
+	
+	/**
+	 Returns a replay of the game recorded so far, claiming the current time and 3BV value of the game.
+	 
+	 @return a replay of the game recorded so far
+	 
+	 @throws IllegalStateException if no game is being recorded
+	 */
+	public Replay getReplay()
+	{
+		if (minesweeper == null)
+			throw new IllegalStateException("no game is being recorded");
+		return new Replay(minesweeper.getWidth(), minesweeper.getHeight(), minesweeper.getMines(), seed, mineLayout,
+						  random, noFlagging, noGuessing, minesweeper.getTime(), minesweeper.count3BV(), actionCount,
+						  Arrays.copyOf(actions.array(), actions.position()));
+	}
+}
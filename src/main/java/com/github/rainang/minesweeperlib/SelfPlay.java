@@ -0,0 +1,357 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ A harness that plays many games with a strategy in parallel, and aggregates the results.
+ <p>
+ Every thread owns one <code>Minesweeper</code> object and one strategy, and starts each of its games with
+ <code>newGame(long)</code> on the same object, so playing does not allocate boards. Threads take games in batches
+ from a shared counter, and the seed of every game is derived from the seed of the run and the number of the game, so
+ a run plays the same games regardless of the amount of threads. Results are added to <code>LongAdder</code> and
+ <code>DoubleAdder</code> accumulators without locking.
+ </p>
+ <p>
+ In headless mode, the games fire no events and are not timed, so they are played at the speed of the engine alone.
+ Strategies that depend on game events, such as those using a <code>Solver</code>, must not be run headless.
+ </p>
+ */
+public final class SelfPlay
+{
+	private static final int BATCH_SIZE = 256;
+	
+	private final int width;
+	
+	private final int height;
+	
+	private final int mines;
+	
+	private final Function<Minesweeper, ? extends Strategy> strategies;
+	
+	private int threads = Runtime.getRuntime()
+								 .availableProcessors();
+	
+	private boolean headless;
+	
+	private boolean noGuessing;
+	
+	private MineLayout mineLayout = MineLayout.SAMPLED;
+	
+	private int maxMoves = Integer.MAX_VALUE;
+	
+	/**
+	 Constructs a harness for games of the specified difficulty.
+	 
+	 @param width      the width of the board
+	 @param height     the height of the board
+	 @param mines      the amount of mines
+	 @param strategies the factory creating the strategy of a thread, given the game the thread plays on
+	 
+	 @throws IllegalArgumentException if the board size or amount of mines is out of range
+	 */
+	public SelfPlay(int width, int height, int mines, Function<Minesweeper, ? extends Strategy> strategies)
+	{
+		if (width < 5 || height < 5 || width > Minesweeper.MAX_LARGE_SIZE || height > Minesweeper.MAX_LARGE_SIZE)
+			throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+		if (mines < 5 || mines > width * height - 10)
+			throw new IllegalArgumentException("Invalid amount of mines: " + mines);
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.strategies = strategies;
+	}
+	
+	/**
+	 Sets the amount of threads to play on. The default is the amount of available processors.
+	 
+	 @param threads the amount of threads
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = Math.max(1, threads);
+	}
+	
+	/**
+	 Set <code>headless</code> to <code>true</code> to play games without firing events or timing them. Disabled by
+	 default.
+	 
+	 @param headless <code>true</code> to play headless
+	 
+	 @see Minesweeper#setHeadless(boolean)
+	 */
+	public void setHeadless(boolean headless)
+	{
+		this.headless = headless;
+	}
+	
+	/**
+	 Set <code>noGuessing</code> to <code>true</code> to play no-guessing games.
+	 
+	 @param noGuessing <code>true</code> to play no-guessing games
+	 */
+	public void setNoGuessing(boolean noGuessing)
+	{
+		this.noGuessing = noGuessing;
+	}
+	
+	/**
+	 Sets the mine layout version the games are generated with. The default is <code>SAMPLED</code>.
+	 
+	 @param mineLayout the mine layout version
+	 */
+	public void setMineLayout(MineLayout mineLayout)
+	{
+		this.mineLayout = mineLayout;
+	}
+	
+	/**
+	 Sets the maximum amount of moves per game. A game not ended after that many moves is abandoned, and counted as
+	 not won. Unlimited by default.
+	 
+	 @param maxMoves the maximum amount of moves per game
+	 */
+	public void setMaxMoves(int maxMoves)
+	{
+		this.maxMoves = Math.max(1, maxMoves);
+	}
+	
+	/**
+	 Plays the specified amount of games, and returns the aggregated results.
+	 
+	 @param games the amount of games to play
+	 @param seed  the seed the seeds of the games are derived from
+	 
+	 @return the results of the games
+	 
+	 @throws RuntimeException if a strategy throws an exception, which stops the run
+	 */
+	public Result run(long games, long seed)
+	{
+		Result result = new Result();
+		AtomicLong next = new AtomicLong();
+		List<Callable<Void>> workers = new ArrayList<>(threads);
+		for (int k = 0; k < threads; k++)
+			workers.add(() ->
+			{
+				play(games, seed, next, result);
+				return null;
+			});
+		
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		try
+		{
+			for (Future<Void> f : pool.invokeAll(workers))
+				f.get();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread()
+				  .interrupt();
+			throw new IllegalStateException("Interrupted", e);
+		} catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally
+		{
+			pool.shutdownNow();
+		}
+		result.elapsed = System.nanoTime() - start;
+		return result;
+	}
+	
+	private void play(long games, long seed, AtomicLong next, Result result)
+	{
+		Minesweeper ms = new Minesweeper();
+		ms.setHeadless(headless);
+		ms.setLargeBoardMode(width > Minesweeper.MAX_SIZE || height > Minesweeper.MAX_SIZE);
+		ms.setMineLayout(mineLayout);
+		ms.setNoGuessing(noGuessing);
+		ms.setDifficulty(width, height, mines);
+		Strategy strategy = strategies.apply(ms);
+		
+		long from;
+		while ((from = next.getAndAdd(BATCH_SIZE)) < games)
+		{
+			long to = Math.min(games, from + BATCH_SIZE);
+			for (long g = from; g < to; g++)
+			{
+				ms.newGame(mix(seed + g * 0x9E3779B97F4A7C15L));
+				long time = System.nanoTime();
+				int moves = 0;
+				while (ms.getGameState() != GameState.END && moves++ < maxMoves && strategy.move(ms))
+					;
+				time = System.nanoTime() - time;
+				
+				result.games.increment();
+				result.clicks.add(ms.getClicks());
+				if (!ms.isGameWon())
+					continue;
+				int bv = ms.count3BV();
+				result.wins.increment();
+				result.wonClicks.add(ms.getClicks());
+				result.wonActions.add(ms.getActions());
+				result.won3BV.add(bv);
+				result.bvPerSecond.add(bv * 1e9 / Math.max(1, time));
+			}
+		}
+	}
+	
+	/**
+	 The finalizer of the SplitMix64 generator, which spreads consecutive game numbers over all bits of the seed.
+	 */
+	private static long mix(long z)
+	{
+		z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+		return z ^ z >>> 31;
+	}
+	
+	/**
+	 A strategy playing games. A strategy is created for every thread, and is only invoked by that thread.
+	 */
+	public interface Strategy
+	{
+		/**
+		 Makes a move on a game in progress, by performing one or more actions on it. The game may be new, or
+		 restarted by the strategy.
+		 
+		 @param minesweeper the game to move on
+		 
+		 @return <code>true</code> to keep playing, or <code>false</code> to give up the game
+		 */
+		boolean move(Minesweeper minesweeper);
+	}
+	
+	/**
+	 The aggregated results of a run. Won games are measured with the wall-clock time the strategy spent on them, so
+	 3BV per second measures the speed of the strategy and the engine together.
+	 */
+	public static final class Result
+	{
+		private final LongAdder games = new LongAdder();
+		
+		private final LongAdder wins = new LongAdder();
+		
+		private final LongAdder clicks = new LongAdder();
+		
+		private final LongAdder wonClicks = new LongAdder();
+		
+		private final LongAdder wonActions = new LongAdder();
+		
+		private final LongAdder won3BV = new LongAdder();
+		
+		private final DoubleAdder bvPerSecond = new DoubleAdder();
+		
+		private long elapsed;
+		
+		private Result()
+		{
+		}
+		
+		/**
+		 Returns the amount of games played.
+		 
+		 @return the amount of games played
+		 */
+		public long getGames()
+		{
+			return games.sum();
+		}
+		
+		/**
+		 Returns the amount of games won.
+		 
+		 @return the amount of games won
+		 */
+		public long getWins()
+		{
+			return wins.sum();
+		}
+		
+		/**
+		 Returns the fraction of games won, from 0 to 1.
+		 
+		 @return the fraction of games won
+		 */
+		public double getWinRate()
+		{
+			long n = getGames();
+			return n == 0 ? 0 : (double) getWins() / n;
+		}
+		
+		/**
+		 Returns the amount of clicks over all games.
+		 
+		 @return the amount of clicks over all games
+		 */
+		public long getClicks()
+		{
+			return clicks.sum();
+		}
+		
+		/**
+		 Returns the mean amount of clicks per won game.
+		 
+		 @return the mean amount of clicks per won game
+		 */
+		public double getMeanClicks()
+		{
+			long n = getWins();
+			return n == 0 ? 0 : (double) wonClicks.sum() / n;
+		}
+		
+		/**
+		 Returns the mean 3BV value per second of won games.
+		 
+		 @return the mean 3BV value per second of won games
+		 */
+		public double getMean3BVPerSecond()
+		{
+			long n = getWins();
+			return n == 0 ? 0 : bvPerSecond.sum() / n;
+		}
+		
+		/**
+		 Returns the efficiency over won games, as the total 3BV value divided by the total amount of actions that
+		 opened tiles. An efficiency of 1 means that every action cleared exactly one 3BV.
+		 
+		 @return the efficiency over won games
+		 */
+		public double getEfficiency()
+		{
+			long n = wonActions.sum();
+			return n == 0 ? 0 : (double) won3BV.sum() / n;
+		}
+		
+		/**
+		 Returns the wall-clock time of the run in nanoseconds.
+		 
+		 @return the wall-clock time of the run in nanoseconds
+		 */
+		public long getElapsed()
+		{
+			return elapsed;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return String.format("%d games, %.2f%% won, %.1f 3BV/s, %.1f clicks, %.3f efficiency", getGames(),
+								 getWinRate() * 100, getMean3BVPerSecond(), getMeanClicks(), getEfficiency());
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.github.rainang.minesweeperlib;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ A logic solver that follows a <code>Minesweeper</code> game and keeps track of the tiles that are provably safe and
+ the tiles that provably contain a mine.
+ <p>
+ The solver deduces from the mine counts of open tiles with single-point rules, subset and superset rules on pairs of
+ overlapping numbers, and the global mine count. Flags are not trusted, since they may be wrong. The solver registers
+ itself as a listener of the game, and after every open or chord action only the numbers around the tiles opened by
+ that action are checked again, rather than the whole board.
+ </p>
+ */
+public final class Solver implements GameEvent.Listener
+{
+	private final Minesweeper minesweeper;
+	
+	private LogicSolver solver;
+	
+	/**
+	 Constructs a solver for the specified game, and registers it as a game event listener of the game. While the
+	 solver is registered, the game records the tiles opened by every action. The solver may be stopped by removing it
+	 with the <code>removeGameEventListener</code> method, which stops the recording unless it is needed otherwise.
+	 
+	 @param minesweeper the game to follow
+	 */
+	public Solver(Minesweeper minesweeper)
+	{
+		this.minesweeper = minesweeper;
+		minesweeper.addGameEventListener(this);
+		reset();
+	}
+	
+	@Override
+	public void onGameEvent(GameEvent event, Minesweeper minesweeper, Tile tile)
+	{
+		if (minesweeper != this.minesweeper)
+			return;
+		switch (event)
+		{
+		case NEW_GAME_EVENT:
+		case RESTART_GAME_EVENT:
+			reset();
+			break;
+		case OPEN_EVENT:
+		case CHORD_EVENT:
+			Board board = minesweeper.getBoard();
+			for (int k = 0; k < board.getChangeCount(); k++)
+				if (!board.isMine(board.getChange(k)))
+					solver.reveal(board.getChange(k));
+			solver.deduce(minesweeper.getMines());
+			break;
+		}
+	}
+	
+	private void reset()
+	{
+		Board board = minesweeper.getBoard();
+		if (solver == null || solver.getBoard() != board)
+		{
+			solver = new LogicSolver(board);
+			solver.setLive();
+		}
+		solver.reset();
+		for (int i = 0; i < board.getSize(); i++)
+			if (board.isOpen(i))
+				solver.reveal(i);
+		solver.deduce(minesweeper.getMines());
+	}
+	
+	/**
+	 Returns <code>true</code> if the tile at the specified coordinates is closed and provably safe.
+	 
+	 @param x the x-coordinate of the tile
+	 @param y the y-coordinate of the tile
+	 
+	 @return <code>true</code> if the tile is closed and provably safe
+	 */
+	public boolean isSafe(int x, int y)
+	{
+		Board board = solver.getBoard();
+		return board.contains(x, y) && solver.getSafeCells()
+											   .contains(board.index(x, y));
+	}
+	
+	/**
+	 Returns <code>true</code> if the tile at the specified coordinates provably contains a mine.
+	 
+	 @param x the x-coordinate of the tile
+	 @param y the y-coordinate of the tile
+	 
+	 @return <code>true</code> if the tile provably contains a mine
+	 */
+	public boolean isMine(int x, int y)
+	{
+		Board board = solver.getBoard();
+		return board.contains(x, y) && solver.getMineCells()
+											   .contains(board.index(x, y));
+	}
+	
+	/**
+	 Returns a list of all closed tiles that are provably safe.
+	 
+	 @return a list of all closed tiles that are provably safe
+	 */
+	public List<Tile> getSafeTiles()
+	{
+		return toTiles(solver.getSafeCells());
+	}
+	
+	/**
+	 Returns a list of all tiles that provably contain a mine.
+	 
+	 @return a list of all tiles that provably contain a mine
+	 */
+	public List<Tile> getMineTiles()
+	{
+		return toTiles(solver.getMineCells());
+	}
+	
+	/**
+	 Returns the exact probability of each tile containing a mine, given the open tiles and the total amount of mines.
+	 Every arrangement of the mines consistent with the open tiles is considered equally likely. The probabilities are
+	 indexed by <code>y * width + x</code>. Open tiles have a probability of 0, and provable mines a probability of 1.
+	 <p>
+	 The tiles not yet resolved by this solver are split into independent groups of tiles linked by shared numbers,
+	 which are counted in parallel.
+	 </p>
+	 
+	 @return the probability of each tile containing a mine
+	 */
+	public double[] getMineProbabilities()
+	{
+		return ProbabilityEngine.compute(solver.getBoard(), minesweeper.getMines(), solver);
+	}
+	
+	private List<Tile> toTiles(IntSet cells)
+	{
+		List<Tile> list = new ArrayList<>(cells.size());
+		for (int k = 0; k < cells.size(); k++)
+			list.add(new Tile(solver.getBoard(), cells.get(k)));
+		return list;
+	}
+}
@@ -0,0 +1,57 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ A <code>MineRandom</code> producing the same values as <code>java.util.SplittableRandom</code>. Since a
+ <code>SplittableRandom</code> cannot be reseeded, its SplitMix64 algorithm is reproduced here, with the state kept in
+ a field, so setting the seed does not allocate.
+ */
+final class SplittableMineRandom implements MineRandom
+{
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	
+	private long seed;
+	
+	SplittableMineRandom()
+	{
+		setSeed(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+	}
+	
+	@Override
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+	
+	@Override
+	public int nextInt(int bound)
+	{
+		if (bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+		int r = mix32(seed += GOLDEN_GAMMA);
+		int m = bound - 1;
+		if ((bound & m) == 0)
+			return r & m;
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(seed += GOLDEN_GAMMA) >>> 1)
+			;
+		return r;
+	}
+	
+	@Override
+	public long nextLong()
+	{
+		return mix64(seed += GOLDEN_GAMMA);
+	}
+	
+	private static long mix64(long z)
+	{
+		z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+		return z ^ z >>> 31;
+	}
+	
+	private static int mix32(long z)
+	{
+		z = (z ^ z >>> 33) * 0x62A9D9ED799705F5L;
+		return (int) ((z ^ z >>> 28) * 0xCB24D0A5C88C35B3L >>> 32);
+	}
+}
@@ -0,0 +1,59 @@
+package com.github.rainang.minesweeperlib;
+
+/**
+ A xoroshiro128++ <code>MineRandom</code>. The 128-bit state is expanded from the seed with SplitMix64, and bounded
+ values are drawn with Lemire's multiply-and-shift method, which rejects only the few values that would bias the
+ result.
+ */
+final class XoroshiroRandom implements MineRandom
+{
+	private long s0;
+	
+	private long s1;
+	
+	XoroshiroRandom()
+	{
+		setSeed(System.nanoTime());
+	}
+	
+	@Override
+	public void setSeed(long seed)
+	{
+		seed += 0x9E3779B97F4A7C15L;
+		s0 = mix(seed);
+		seed += 0x9E3779B97F4A7C15L;
+		s1 = mix(seed);
+	}
+	
+	@Override
+	public int nextInt(int bound)
+	{
+		long m = (nextLong() >>> 32) * bound;
+		if ((m & 0xFFFFFFFFL) < bound)
+		{
+			long threshold = (0x100000000L - bound) % bound;
+			while ((m & 0xFFFFFFFFL) < threshold)
+				m = (nextLong() >>> 32) * bound;
+		}
+		return (int) (m >>> 32);
+	}
+	
+	@Override
+	public long nextLong()
+	{
+		long a = s0;
+		long b = s1;
+		long result = Long.rotateLeft(a + b, 17) + a;
+		b ^= a;
+		s0 = Long.rotateLeft(a, 49) ^ b ^ b << 21;
+		s1 = Long.rotateLeft(b, 28);
+		return result;
+	}
+	
+	private static long mix(long z)
+	{
+		z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+		return z ^ z >>> 31;
+	}
+}
@@ -0,0 +1,205 @@
+package com.github.rainang.minesweeperlib;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ Hammers shared games with overlapping opens, chords, and flags from several threads, and checks that every game ends
+ exactly once, with a cleared count and losing tile consistent with the actions that took effect.
+ */
+public class ConcurrentMinesweeperTest
+{
+	private static final int THREADS = 8;
+	
+	private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS + 1);
+	
+	@AfterClass
+	public static void shutdown()
+	{
+		POOL.shutdownNow();
+	}
+	
+	@Test
+	public void safeActionsWinExactlyOnce() throws Exception
+	{
+		for (int seed = 0; seed < 300; seed++)
+		{
+			Result r = play(new ConcurrentMinesweeper(30, 16, 99), seed, true);
+			assertEquals("seed " + seed, 1, r.wins.get());
+			assertEquals("seed " + seed, 0, r.losses.get());
+			assertEquals("seed " + seed, GameState.END, r.game.getGameState());
+			assertTrue("seed " + seed, r.game.isGameWon());
+			assertEquals("seed " + seed, 30 * 16 - 99, r.game.getCleared());
+			assertEquals("seed " + seed, r.game.getCleared(), r.opened.get());
+			assertNull("seed " + seed, r.losingAction.get());
+		}
+	}
+	
+	@Test
+	public void safeActionsWinExactlyOnceOnLargeBoard() throws Exception
+	{
+		for (int seed = 0; seed < 20; seed++)
+		{
+			Result r = play(new ConcurrentMinesweeper(128, 128, 2000), seed, true);
+			assertEquals("seed " + seed, 1, r.wins.get());
+			assertEquals("seed " + seed, 0, r.losses.get());
+			assertEquals("seed " + seed, 128 * 128 - 2000, r.game.getCleared());
+			assertEquals("seed " + seed, r.game.getCleared(), r.opened.get());
+		}
+	}
+	
+	@Test
+	public void randomActionsEndExactlyOnce() throws Exception
+	{
+		for (int seed = 0; seed < 300; seed++)
+		{
+			Result r = play(new ConcurrentMinesweeper(30, 16, 99), seed, false);
+			ConcurrentMinesweeper game = r.game;
+			assertEquals("seed " + seed, 1, r.wins.get() + r.losses.get());
+			assertEquals("seed " + seed, GameState.END, game.getGameState());
+			assertEquals("seed " + seed, game.getCleared(), r.opened.get());
+			if (game.isGameWon())
+			{
+				assertEquals("seed " + seed, 30 * 16 - 99, game.getCleared());
+				assertNull("seed " + seed, r.losingAction.get());
+				continue;
+			}
+			// exactly one action revealed a mine, and it is the losing tile
+			int[] action = r.losingAction.get();
+			assertNotNull("seed " + seed, action);
+			Tile losing = game.getLosingTile();
+			assertNotNull("seed " + seed, losing);
+			assertTrue("seed " + seed, losing.isMine());
+			assertTrue("seed " + seed, losing.isOpen());
+			// an open reveals its own tile, a chord one next to it
+			int reach = action[2];
+			assertTrue("seed " + seed, Math.abs(losing.getX() - action[0]) <= reach);
+			assertTrue("seed " + seed, Math.abs(losing.getY() - action[1]) <= reach);
+		}
+	}
+	
+	/**
+	 Plays a game from a first click at the center. The players open every tile without a mine, each followed by a
+	 chord next to it, while one player flags every mine. Unless the game is safe, a tenth of the tiles are flagged up
+	 front, mostly wrongly, so chords can open mines, and the players also open the mines, in every other game only
+	 after the tiles without mines.
+	 */
+	private static Result play(ConcurrentMinesweeper game, long seed, boolean safe) throws Exception
+	{
+		Result r = new Result(game);
+		game.addListener((event, g, tile) ->
+		{
+			if (event == GameEvent.WIN_EVENT)
+				r.wins.incrementAndGet();
+			else if (event == GameEvent.LOSE_EVENT)
+				r.losses.incrementAndGet();
+		});
+		game.newGame(seed);
+		int w = game.getWidth();
+		int h = game.getHeight();
+		r.apply(w / 2, h / 2, false, game.open(w / 2, h / 2));
+		if (game.getGameState() == GameState.END)
+			return r;
+		
+		List<Integer> safeTiles = new ArrayList<>();
+		List<Integer> mines = new ArrayList<>();
+		for (int i = 0; i < w * h; i++)
+			if (game.getTile(i % w, i / w)
+					.isMine())
+				mines.add(i);
+			else
+				safeTiles.add(i);
+		
+		CountDownLatch gate = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int k = 0; k < THREADS; k++)
+		{
+			List<Integer> order = new ArrayList<>(safeTiles);
+			Random random = new Random(seed * THREADS + k);
+			if (!safe && seed % 2 == 0)
+				order.addAll(mines);
+			Collections.shuffle(order, random);
+			if (!safe && seed % 2 != 0)
+				order.addAll(mines);
+			futures.add(POOL.submit(() ->
+			{
+				gate.await();
+				for (int i : order)
+				{
+					int x = i % w;
+					int y = i / w;
+					r.apply(x, y, false, game.open(x, y));
+					// chord a nearby tile, which may race the cascades of other players over the same cells
+					x = Math.min(w - 1, Math.max(0, x + random.nextInt(3) - 1));
+					y = Math.min(h - 1, Math.max(0, y + random.nextInt(3) - 1));
+					r.apply(x, y, true, game.chord(x, y));
+				}
+				return null;
+			}));
+		}
+		List<Integer> flags = new ArrayList<>(mines);
+		Collections.shuffle(flags, new Random(~seed));
+		if (!safe)
+		{
+			List<Integer> tiles = new ArrayList<>(safeTiles);
+			tiles.addAll(mines);
+			Collections.shuffle(tiles, new Random(seed));
+			for (int i : tiles.subList(0, tiles.size() / 10))
+				game.flag(i % w, i / w);
+		}
+		futures.add(POOL.submit(() ->
+		{
+			gate.await();
+			for (int i : flags)
+				game.flag(i % w, i / w);
+			return null;
+		}));
+		gate.countDown();
+		for (Future<?> f : futures)
+			f.get();
+		return r;
+	}
+	
+	private static final class Result
+	{
+		private final ConcurrentMinesweeper game;
+		
+		private final AtomicInteger wins = new AtomicInteger();
+		
+		private final AtomicInteger losses = new AtomicInteger();
+		
+		private final AtomicLong opened = new AtomicLong();
+		
+		private final AtomicReference<int[]> losingAction = new AtomicReference<>();
+		
+		private Result(ConcurrentMinesweeper game)
+		{
+			this.game = game;
+		}
+		
+		private void apply(int x, int y, boolean chord, int result)
+		{
+			opened.addAndGet(Math.abs(result));
+			if (result < 0)
+				assertTrue("more than one action revealed a mine",
+						   losingAction.compareAndSet(null, new int[] {x, y, chord ? 1 : 0}));
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.github.rainang.minesweeperlib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ Checks the mine probabilities of small boards against a brute-force enumeration of every arrangement of the mines
+ consistent with the open tiles.
+ */
+public class ProbabilityEngineTest
+{
+	private static final int MAX_CLOSED = 20;
+	
+	@Test
+	public void probabilitiesMatchEnumeration()
+	{
+		int checked = 0;
+		for (int seed = 0; seed < 300; seed++)
+		{
+			Minesweeper game = play(seed);
+			if (game == null)
+				continue;
+			Board board = game.getBoard();
+			double[] expected = enumerate(board, game.getMines());
+			
+			// without deductions, every unresolved cell goes through the engine
+			LogicSolver raw = new LogicSolver(board);
+			raw.setLive();
+			raw.reset();
+			for (int i = 0; i < board.getSize(); i++)
+				if (board.isOpen(i))
+					raw.reveal(i);
+			assertClose(seed, expected, ProbabilityEngine.compute(board, game.getMines(), raw));
+			
+			assertClose(seed, expected, new Solver(game).getMineProbabilities());
+			checked++;
+		}
+		assertTrue(checked > 200);
+	}
+	
+	/**
+	 Plays a 6x6 game with 8 mines by opening random safe tiles until at most <code>MAX_CLOSED</code> tiles are closed.
+	 Some tiles are opened with a safe neighbor flagged, which is unflagged afterwards, so that it is left closed next to
+	 an open zero.
+	 
+	 @return the game, or <code>null</code> if it was won before enough tiles were opened
+	 */
+	private static Minesweeper play(long seed)
+	{
+		Random random = new Random(seed);
+		Minesweeper game = new Minesweeper();
+		game.setDifficulty(6, 6, 8);
+		game.newGame(seed);
+		game.open(random.nextInt(6), random.nextInt(6));
+		Board board = game.getBoard();
+		while (game.getGameState() == GameState.PLAY && closed(board) > MAX_CLOSED)
+		{
+			List<Integer> safe = new ArrayList<>();
+			for (int i = 0; i < board.getSize(); i++)
+				if (!board.isOpen(i) && !board.isMine(i))
+					safe.add(i);
+			int i = safe.get(random.nextInt(safe.size()));
+			int j = safe.get(random.nextInt(safe.size()));
+			boolean flag = random.nextBoolean() && i != j;
+			if (flag)
+				game.flag(board.getX(j), board.getY(j));
+			game.open(board.getX(i), board.getY(i));
+			if (flag)
+				game.flag(board.getX(j), board.getY(j));
+		}
+		return game.getGameState() == GameState.PLAY ? game : null;
+	}
+	
+	private static int closed(Board board)
+	{
+		int n = 0;
+		for (int i = 0; i < board.getSize(); i++)
+			if (!board.isOpen(i))
+				n++;
+		return n;
+	}
+	
+	/**
+	 Counts, for every closed cell, the arrangements of the mines among the closed cells in which it contains a mine,
+	 out of every arrangement matching the mine counts of the open cells.
+	 */
+	private static double[] enumerate(Board board, int mines)
+	{
+		int size = board.getSize();
+		int[] cells = new int[closed(board)];
+		int n = 0;
+		for (int i = 0; i < size; i++)
+			if (!board.isOpen(i))
+				cells[n++] = i;
+		
+		// each open cell constrains the closed cells around it, as a bit mask over the closed cells
+		List<int[]> constraints = new ArrayList<>();
+		for (int i = 0; i < size; i++)
+		{
+			if (!board.isOpen(i))
+				continue;
+			int mask = 0;
+			for (int k = 0; k < n; k++)
+				if (Math.abs(board.getX(cells[k]) - board.getX(i)) <= 1 &&
+					Math.abs(board.getY(cells[k]) - board.getY(i)) <= 1)
+					mask |= 1 << k;
+			constraints.add(new int[] {mask, board.getMineCount(i)});
+		}
+		
+		long[] count = new long[n];
+		long total = 0;
+		// visits every mask of n bits with exactly the given amount of bits set
+		for (int mask = (1 << mines) - 1; mask < 1 << n; )
+		{
+			boolean valid = true;
+			for (int[] c : constraints)
+				if (Integer.bitCount(mask & c[0]) != c[1])
+				{
+					valid = false;
+					break;
+				}
+			if (valid)
+			{
+				total++;
+				for (int k = 0; k < n; k++)
+					if ((mask & 1 << k) != 0)
+						count[k]++;
+			}
+			int low = mask & -mask;
+			int ripple = mask + low;
+			mask = ripple | ((mask ^ ripple) >>> 2) / low;
+		}
+		
+		double[] p = new double[size];
+		for (int k = 0; k < n; k++)
+			p[cells[k]] = (double) count[k] / total;
+		return p;
+	}
+	
+	private static void assertClose(long seed, double[] expected, double[] actual)
+	{
+		for (int i = 0; i < expected.length; i++)
+			assertEquals("seed " + seed + ", cell " + i, expected[i], actual[i], 1e-9);
+	}
+}
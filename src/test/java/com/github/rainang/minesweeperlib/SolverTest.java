@@ -0,0 +1,85 @@
+package com.github.rainang.minesweeperlib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ Checks the deductions of a live Solver against the actual mines of the board.
+ */
+public class SolverTest
+{
+	@Test
+	public void closedNeighborOfOpenZeroIsSafe()
+	{
+		int checked = 0;
+		for (int seed = 1; seed < 200; seed++)
+		{
+			Minesweeper game = new Minesweeper();
+			game.setDifficulty(Difficulty.EXPERT);
+			game.newGame(seed);
+			game.open(0, 0);
+			Solver solver = new Solver(game);
+			
+			// flag a safe neighbor of a closed zero, open the zero, then remove the flag again
+			int[] pair = findClosedZero(game.getBoard());
+			if (pair == null)
+				continue;
+			Board board = game.getBoard();
+			int zero = pair[0];
+			int neighbor = pair[1];
+			game.flag(board.getX(neighbor), board.getY(neighbor));
+			game.open(board.getX(zero), board.getY(zero));
+			game.flag(board.getX(neighbor), board.getY(neighbor));
+			if (game.getGameState() != GameState.PLAY || board.isOpen(neighbor))
+				continue;
+			
+			assertTrue("seed " + seed, solver.isSafe(board.getX(neighbor), board.getY(neighbor)));
+			checked++;
+		}
+		assertTrue(checked > 100);
+	}
+	
+	@Test
+	public void deductionsMatchTheBoard()
+	{
+		for (int seed = 1; seed < 200; seed++)
+		{
+			Minesweeper game = new Minesweeper();
+			game.setDifficulty(Difficulty.EXPERT);
+			game.newGame(seed);
+			game.open(0, 0);
+			Solver solver = new Solver(game);
+			Board board = game.getBoard();
+			for (Tile t : solver.getSafeTiles())
+				assertTrue("seed " + seed, !board.isMine(board.index(t.getX(), t.getY())));
+			for (Tile t : solver.getMineTiles())
+				assertTrue("seed " + seed, board.isMine(board.index(t.getX(), t.getY())));
+		}
+	}
+	
+	/**
+	 Returns a closed cell without a mine or nearby mines, and a closed neighbor of it without a mine, or
+	 <code>null</code> if there is none.
+	 */
+	private static int[] findClosedZero(Board board)
+	{
+		int width = board.getWidth();
+		int height = board.getHeight();
+		for (int i = 0; i < board.getSize(); i++)
+		{
+			if (board.isOpen(i) || board.isMine(i) || board.getMineCount(i) != 0)
+				continue;
+			int x = board.getX(i);
+			int y = board.getY(i);
+			for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+				for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+				{
+					int j = ny * width + nx;
+					if (j != i && !board.isOpen(j))
+						return new int[] {i, j};
+				}
+		}
+		return null;
+	}
+}